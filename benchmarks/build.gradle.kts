@@ -0,0 +1,15 @@
+plugins {
+    id("io.github.raphiz.hotswap.java-library")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+description = "JMH benchmarks for the hotswap library"
+
+jmh {
+    jmhVersion = "1.37"
+}
+
+dependencies {
+    jmhImplementation(project(":lib"))
+    jmhImplementation(testFixtures(project(":lib")))
+}
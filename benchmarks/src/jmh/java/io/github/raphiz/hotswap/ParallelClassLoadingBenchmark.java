@@ -0,0 +1,93 @@
+package io.github.raphiz.hotswap;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates an application start where several threads load distinct classes concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelClassLoadingBenchmark {
+    private static final String PACKAGE_NAME = "com.example.generated";
+    private static final int CLASS_COUNT = 400;
+
+    @Param({"1", "8"})
+    public int threads;
+
+    private Path buildDirectory;
+    private URL[] urls;
+    private ExecutorService executorService;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path sourceDirectory = Files.createTempDirectory("source");
+        buildDirectory = Files.createTempDirectory("build");
+        List<String> sourceFiles = new ArrayList<>();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            Path sourceFile = sourceDirectory.resolve("Generated" + i + ".java");
+            Files.writeString(sourceFile, """
+                    package %s;
+                    public class Generated%d {
+                        public static final String NAME = "Generated%d";
+                        public int compute(int value) {
+                            return value * %d + NAME.length();
+                        }
+                    }
+                    """.formatted(PACKAGE_NAME, i, i, i));
+            sourceFiles.add(sourceFile.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-d", buildDirectory.toString()));
+        arguments.addAll(sourceFiles);
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile generated classes");
+        }
+        urls = new URL[]{buildDirectory.toUri().toURL()};
+        executorService = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public int loadAllClasses() throws Exception {
+        try (SubpackageClassLoader classLoader = new SubpackageClassLoader(urls, getClass().getClassLoader(), List.of(PACKAGE_NAME))) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread;
+                futures.add(executorService.submit(() -> {
+                    int loaded = 0;
+                    for (int i = offset; i < CLASS_COUNT; i += threads) {
+                        Class.forName(PACKAGE_NAME + ".Generated" + i, true, classLoader);
+                        loaded++;
+                    }
+                    return loaded;
+                }));
+            }
+            int loaded = 0;
+            for (Future<Integer> future : futures) {
+                loaded += future.get();
+            }
+            return loaded;
+        }
+    }
+}
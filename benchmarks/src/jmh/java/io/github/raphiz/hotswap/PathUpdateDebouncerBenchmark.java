@@ -0,0 +1,55 @@
+package io.github.raphiz.hotswap;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PathUpdateDebouncerBenchmark {
+    private final LongAdder callbackInvocations = new LongAdder();
+    private PathUpdateDebouncer debouncer;
+
+    @Setup
+    public void setUp() {
+        debouncer = new PathUpdateDebouncer(Duration.ofMillis(10), pathUpdates -> callbackInvocations.increment());
+    }
+
+    @TearDown
+    public void tearDown() {
+        debouncer.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private Path[] paths;
+        private int index;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            paths = new Path[1024];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = Path.of("/build/classes/thread" + threadParams.getThreadIndex() + "/Class" + i + ".class");
+            }
+        }
+
+        Path nextPath() {
+            index = (index + 1) % paths.length;
+            return paths[index];
+        }
+    }
+
+    @Benchmark
+    public void submit(ThreadState threadState) {
+        debouncer.submit(threadState.nextPath(), EventType.MODIFIED);
+    }
+}
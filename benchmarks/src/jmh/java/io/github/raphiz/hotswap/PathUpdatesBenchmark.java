@@ -0,0 +1,54 @@
+package io.github.raphiz.hotswap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathUpdatesBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int burstSize;
+
+    private Path[] paths;
+
+    @Setup
+    public void setUp() {
+        paths = new Path[burstSize];
+        for (int i = 0; i < burstSize; i++) {
+            paths[i] = Path.of("/build/classes/java/main/com/example/Class" + i + ".class");
+        }
+    }
+
+    /**
+     * Simulates a clean rebuild: every class file is created and then modified.
+     */
+    @Benchmark
+    public PathUpdates accumulateCompileBurst() {
+        PathUpdates pathUpdates = new PathUpdates();
+        for (Path path : paths) {
+            pathUpdates = pathUpdates.withPathUpdate(path, EventType.CREATED);
+        }
+        for (Path path : paths) {
+            pathUpdates = pathUpdates.withPathUpdate(path, EventType.MODIFIED);
+        }
+        return pathUpdates;
+    }
+
+    @Benchmark
+    public PathUpdates accumulateCompileBurstWithBuilder() {
+        PathUpdates.Builder builder = PathUpdates.builder();
+        for (Path path : paths) {
+            builder.add(path, EventType.CREATED);
+        }
+        for (Path path : paths) {
+            builder.add(path, EventType.MODIFIED);
+        }
+        return builder.build();
+    }
+}
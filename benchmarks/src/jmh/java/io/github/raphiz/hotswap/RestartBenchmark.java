@@ -0,0 +1,50 @@
+package io.github.raphiz.hotswap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
+import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+
+/**
+ * Measures a full stop and start cycle of a generated application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestartBenchmark {
+    private GreeterAppWriter greeterAppWriter;
+    private ApplicationLoader applicationLoader;
+
+    @Setup
+    public void setUp() throws Exception {
+        greeterAppWriter = new GreeterAppWriter();
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                List.of(PACKAGE_PREFIX),
+                greeterAppWriter.createFakeParentClassLoader().getURLs(),
+                Duration.ofSeconds(5)
+        );
+        applicationLoader.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        applicationLoader.stop();
+        greeterAppWriter.close();
+    }
+
+    @Benchmark
+    public void restart() {
+        applicationLoader.restart();
+    }
+}
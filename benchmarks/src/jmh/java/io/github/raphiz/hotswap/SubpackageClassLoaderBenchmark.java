@@ -0,0 +1,56 @@
+package io.github.raphiz.hotswap;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
+import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubpackageClassLoaderBenchmark {
+    private GreeterAppWriter greeterAppWriter;
+    private SubpackageClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws Exception {
+        greeterAppWriter = new GreeterAppWriter();
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        classLoader = new SubpackageClassLoader(
+                greeterAppWriter.createFakeParentClassLoader().getURLs(),
+                getClass().getClassLoader(),
+                List.of("something.else", "org.example", PACKAGE_PREFIX)
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        classLoader.close();
+        greeterAppWriter.close();
+    }
+
+    @Benchmark
+    public Class<?> loadApplicationClass() throws ClassNotFoundException {
+        return classLoader.loadClass(PACKAGE_PREFIX + "." + CLASS_NAME);
+    }
+
+    @Benchmark
+    public Class<?> loadDelegatedJdkClass() throws ClassNotFoundException {
+        return classLoader.loadClass("java.util.concurrent.ConcurrentHashMap");
+    }
+
+    @Benchmark
+    public Class<?> defineApplicationClassInFreshLoader() throws ClassNotFoundException, IOException {
+        try (SubpackageClassLoader freshClassLoader = new SubpackageClassLoader(classLoader.getURLs(), getClass().getClassLoader(), List.of(PACKAGE_PREFIX))) {
+            return freshClassLoader.loadClass(PACKAGE_PREFIX + "." + CLASS_NAME);
+        }
+    }
+}
@@ -7,6 +7,14 @@ plugins {
 
 tasks.shadowJar.configure {
     archiveClassifier = ""
+    // The plugin passes its own jar as Java agent, but shadow does not merge the manifest of the bundled library jar
+    manifest {
+        attributes(
+            "Premain-Class" to "io.github.raphiz.hotswap.HotswapAgent",
+            "Agent-Class" to "io.github.raphiz.hotswap.HotswapAgent",
+            "Can-Redefine-Classes" to "true",
+        )
+    }
 }
 
 gradlePlugin {
@@ -24,6 +32,15 @@ gradlePlugin {
     }
 }
 
+tasks.test.configure {
+    // Lets the tests check the published plugin jar, which is used as Java agent
+    val pluginJar = tasks.shadowJar.flatMap { it.archiveFile }
+    inputs.file(pluginJar)
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-Dhotswap.pluginJar=${pluginJar.get().asFile.absolutePath}")
+    })
+}
+
 tasks.validatePlugins.configure {
     enableStricterValidation = true
 }
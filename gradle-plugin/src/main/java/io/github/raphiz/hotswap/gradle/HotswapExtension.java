@@ -15,5 +15,29 @@ public interface HotswapExtension {
 
     Property<Duration> getShutdownPollingInterval();
 
+    Property<Duration> getShutdownTimeout();
+
+    Property<String> getReadinessProbe();
+
     ListProperty<String> getPackagePrefixes();
+
+    Property<Boolean> getLayeredClassLoading();
+
+    Property<Boolean> getRestartOnBuildCompletion();
+
+    Property<Boolean> getWarmUp();
+
+    Property<String> getWatcher();
+
+    Property<Duration> getPollInterval();
+
+    Property<Boolean> getOverlappingRestarts();
+
+    Property<Boolean> getRedefineClasses();
+
+    ListProperty<String> getRestartIncludes();
+
+    ListProperty<String> getRestartExcludes();
+
+    ListProperty<String> getResourceOnly();
 }
@@ -1,14 +1,20 @@
 package io.github.raphiz.hotswap.gradle;
 
+import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.JavaExec;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,12 +25,26 @@ public class HotswapGradlePlugin implements Plugin<Project> {
     public void apply(@NotNull Project target) {
         HotswapExtension extension = target.getExtensions().create("hotswap", HotswapExtension.class);
         extension.getTaskName().convention("run");
+        extension.getRestartOnBuildCompletion().convention(false);
+        extension.getRedefineClasses().convention(false);
 
         target.afterEvaluate((project) -> {
             JavaExec task = getTask(project, extension);
             List<String> packagePrefixes = extension.getPackagePrefixes().get();
             Duration debounceDuration = extension.getDebounceDuration().getOrNull();
             Duration shutdownPollingInterval = extension.getShutdownPollingInterval().getOrNull();
+            Duration shutdownTimeout = extension.getShutdownTimeout().getOrNull();
+            String readinessProbe = extension.getReadinessProbe().getOrNull();
+            Boolean layeredClassLoading = extension.getLayeredClassLoading().getOrNull();
+            boolean restartOnBuildCompletion = extension.getRestartOnBuildCompletion().get();
+            Boolean warmUp = extension.getWarmUp().getOrNull();
+            String watcher = extension.getWatcher().getOrNull();
+            Duration pollInterval = extension.getPollInterval().getOrNull();
+            Boolean overlappingRestarts = extension.getOverlappingRestarts().getOrNull();
+            boolean redefineClasses = extension.getRedefineClasses().get();
+            List<String> restartIncludes = extension.getRestartIncludes().get();
+            List<String> restartExcludes = extension.getRestartExcludes().get();
+            List<String> resourceOnly = extension.getResourceOnly().get();
             Provider<String> classPath = extension.getClassPath().map(it ->
                     it.getFiles()
                             .stream()
@@ -34,6 +54,9 @@ public class HotswapGradlePlugin implements Plugin<Project> {
 
             // Add hotswap library jar to the runtime classpath
             task.setClasspath(task.getClasspath().plus(project.files(hotSwapLibraryJar())));
+            if (redefineClasses) {
+                task.jvmArgs("-javaagent:" + hotSwapLibraryJar().getAbsolutePath());
+            }
 
             // Additional parameters to instruct the hotswap devmode
             Map<String, String> configuration = new HashMap<>();
@@ -48,6 +71,44 @@ public class HotswapGradlePlugin implements Plugin<Project> {
             if (shutdownPollingInterval != null) {
                 configuration.put("hotswap.shutdownPollingInterval", shutdownPollingInterval.toMillis() + "");
             }
+            if (shutdownTimeout != null) {
+                configuration.put("hotswap.shutdownTimeout", shutdownTimeout.toMillis() + "");
+            }
+            if (readinessProbe != null) {
+                configuration.put("hotswap.readinessProbe", readinessProbe);
+            }
+            if (layeredClassLoading != null) {
+                configuration.put("hotswap.layeredClassLoading", layeredClassLoading.toString());
+            }
+            if (warmUp != null) {
+                configuration.put("hotswap.warmUp", warmUp.toString());
+            }
+            if (watcher != null) {
+                configuration.put("hotswap.watcher", watcher);
+            }
+            if (pollInterval != null) {
+                configuration.put("hotswap.pollInterval", pollInterval.toMillis() + "");
+            }
+            if (overlappingRestarts != null) {
+                configuration.put("hotswap.overlappingRestarts", overlappingRestarts.toString());
+            }
+            if (redefineClasses) {
+                configuration.put("hotswap.redefineClasses", "true");
+            }
+            if (!restartIncludes.isEmpty()) {
+                configuration.put("hotswap.restartIncludes", String.join(",", restartIncludes));
+            }
+            if (!restartExcludes.isEmpty()) {
+                configuration.put("hotswap.restartExcludes", String.join(",", restartExcludes));
+            }
+            if (!resourceOnly.isEmpty()) {
+                configuration.put("hotswap.resourceOnly", String.join(",", resourceOnly));
+            }
+            if (restartOnBuildCompletion) {
+                File buildCompletionMarker = project.getLayout().getBuildDirectory().file("hotswap/build-completed").get().getAsFile();
+                configuration.put("hotswap.buildCompletionMarker", buildCompletionMarker.getAbsolutePath());
+                project.getTasks().named("classes").configure(it -> it.doLast(new WriteBuildCompletionMarker(buildCompletionMarker)));
+            }
             task.systemProperties(configuration);
 
             // Override the main class
@@ -55,6 +116,27 @@ public class HotswapGradlePlugin implements Plugin<Project> {
         });
     }
 
+    /**
+     * Signals a running hotswap dev mode that the class files are complete and the application can be restarted.
+     */
+    private static class WriteBuildCompletionMarker implements Action<Task> {
+        private final File buildCompletionMarker;
+
+        WriteBuildCompletionMarker(File buildCompletionMarker) {
+            this.buildCompletionMarker = buildCompletionMarker;
+        }
+
+        @Override
+        public void execute(@NotNull Task task) {
+            try {
+                Files.createDirectories(buildCompletionMarker.toPath().getParent());
+                Files.writeString(buildCompletionMarker.toPath(), Instant.now().toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     private static @NotNull JavaExec getTask(@NotNull Project target, HotswapExtension extension) {
         return target.getTasks().named(extension.getTaskName().get(), JavaExec.class).get();
     }
@@ -1,20 +1,34 @@
 package io.github.raphiz.hotswap.gradle;
 
 import io.github.raphiz.hotswap.GreeterAppWriter;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.plugins.JavaApplication;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.testfixtures.ProjectBuilder;
 import org.gradle.testkit.runner.GradleRunner;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 
 import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
 import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HotswapGradlePluginTest {
 
@@ -62,6 +76,80 @@ class HotswapGradlePluginTest {
         greeterAppWriter.assertOutputsMessage("Hello Universe");
     }
 
+    @Test
+    void testPassesExtensionPropertiesToDevMode() {
+        Path projectDirectory = greeterAppWriter.getProjectDirectory();
+        Project project = ProjectBuilder.builder().withProjectDir(projectDirectory.toFile()).build();
+        project.getPluginManager().apply("application");
+        project.getPluginManager().apply(HotswapGradlePlugin.class);
+        project.getExtensions().getByType(JavaApplication.class).getMainClass().set(PACKAGE_PREFIX + "." + CLASS_NAME);
+        HotswapExtension extension = project.getExtensions().getByType(HotswapExtension.class);
+        extension.getClassPath().set(project.files("build/classes/java/main"));
+        extension.getPackagePrefixes().set(List.of("com.example", "org.example"));
+        extension.getDebounceDuration().set(Duration.ofMillis(50));
+        extension.getShutdownPollingInterval().set(Duration.ofSeconds(1));
+        extension.getShutdownTimeout().set(Duration.ofSeconds(10));
+        extension.getReadinessProbe().set("port:8080");
+        extension.getLayeredClassLoading().set(true);
+        extension.getRestartOnBuildCompletion().set(true);
+        extension.getWarmUp().set(true);
+        extension.getWatcher().set("polling");
+        extension.getPollInterval().set(Duration.ofMillis(200));
+        extension.getOverlappingRestarts().set(true);
+        extension.getRedefineClasses().set(true);
+        extension.getRestartIncludes().set(List.of("com/**"));
+        extension.getRestartExcludes().set(List.of("**/*Test.class", "**~"));
+        extension.getResourceOnly().set(List.of("templates/**"));
+        ((ProjectInternal) project).evaluate();
+
+        JavaExec run = (JavaExec) project.getTasks().getByName("run");
+        assertEquals("io.github.raphiz.hotswap.DevMode", run.getMainClass().get());
+        assertEquals(Map.ofEntries(
+                Map.entry("hotswap.mainClass", PACKAGE_PREFIX + "." + CLASS_NAME),
+                Map.entry("hotswap.classPath", projectDirectory.resolve("build/classes/java/main").toFile().getAbsolutePath()),
+                Map.entry("hotswap.packagePrefixes", "com.example,org.example"),
+                Map.entry("hotswap.debounceDuration", "50"),
+                Map.entry("hotswap.shutdownPollingInterval", "1000"),
+                Map.entry("hotswap.shutdownTimeout", "10000"),
+                Map.entry("hotswap.readinessProbe", "port:8080"),
+                Map.entry("hotswap.layeredClassLoading", "true"),
+                Map.entry("hotswap.buildCompletionMarker", projectDirectory.resolve("build/hotswap/build-completed").toFile().getAbsolutePath()),
+                Map.entry("hotswap.warmUp", "true"),
+                Map.entry("hotswap.watcher", "polling"),
+                Map.entry("hotswap.pollInterval", "200"),
+                Map.entry("hotswap.overlappingRestarts", "true"),
+                Map.entry("hotswap.redefineClasses", "true"),
+                Map.entry("hotswap.restartIncludes", "com/**"),
+                Map.entry("hotswap.restartExcludes", "**/*Test.class,**~"),
+                Map.entry("hotswap.resourceOnly", "templates/**")
+        ), run.getSystemProperties());
+
+        // The jar passed as agent is the one that provides DevMode to the application
+        List<String> agents = run.getJvmArgs().stream().filter(it -> it.startsWith("-javaagent:")).toList();
+        assertEquals(1, agents.size());
+        File agentJar = new File(agents.get(0).substring("-javaagent:".length()));
+        assertTrue(run.getClasspath().contains(agentJar));
+        assertUsableAsJavaAgent(agentJar);
+    }
+
+    @Test
+    void testPublishedPluginJarCanBeUsedAsJavaAgent() {
+        // The shadow jar bundling the library, see the test task in build.gradle.kts
+        assertUsableAsJavaAgent(new File(System.getProperty("hotswap.pluginJar")));
+    }
+
+    private static void assertUsableAsJavaAgent(File jar) {
+        try (JarFile jarFile = new JarFile(jar)) {
+            Attributes attributes = jarFile.getManifest().getMainAttributes();
+            assertEquals("io.github.raphiz.hotswap.HotswapAgent", attributes.getValue("Premain-Class"));
+            assertEquals("io.github.raphiz.hotswap.HotswapAgent", attributes.getValue("Agent-Class"));
+            assertEquals("true", attributes.getValue("Can-Redefine-Classes"));
+            assertNotNull(jarFile.getEntry("io/github/raphiz/hotswap/HotswapAgent.class"));
+        } catch (IOException e) {
+            throw new AssertionError("Failed to read " + jar, e);
+        }
+    }
+
     private void writeGradleFile() throws IOException {
         Path buildFile = greeterAppWriter.getProjectDirectory().resolve("build.gradle.kts");
         Files.writeString(buildFile, """
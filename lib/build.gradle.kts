@@ -49,6 +49,17 @@ publishing {
     }
 }
 
+tasks.jar {
+    // Allows using the library jar as Java agent to redefine classes instead of restarting, see HotswapAgent
+    manifest {
+        attributes(
+            "Premain-Class" to "io.github.raphiz.hotswap.HotswapAgent",
+            "Agent-Class" to "io.github.raphiz.hotswap.HotswapAgent",
+            "Can-Redefine-Classes" to "true",
+        )
+    }
+}
+
 dependencies {
     testImplementation("org.awaitility:awaitility:4.2.0")
     testFixturesImplementation("org.awaitility:awaitility:4.2.0")
@@ -1,96 +1,475 @@
 package io.github.raphiz.hotswap;
 
-import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URL;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.logging.Logger;
 
 public class ApplicationLoader {
+    static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int LEAK_DETECTION_RESTART_THRESHOLD = 3;
+    private static final Duration PORT_PROBE_INTERVAL = Duration.ofMillis(50);
+    private static final Duration OVERLAPPING_READINESS_TIMEOUT = Duration.ofSeconds(30);
 
     private final String mainClass;
     private final String[] args;
     private final Collection<String> packagePrefixes;
     private final URL[] urls;
     private final Duration shutdownPollingInterval;
+    private final Duration shutdownTimeout;
+    private final ReadinessProbe readinessProbe;
+    private final ClassPathIndex classPathIndex;
+    private final ClassLoaderLayers classLoaderLayers;
+    private final ClassWarmUp classWarmUp;
+    private final boolean overlappingRestarts;
+    private final HandoffRegistry handoffRegistry = new HandoffRegistry();
+    private final RestartMetrics restartMetrics = new RestartMetrics();
+    private final ClassLoaderLeakDetector leakDetector = new ClassLoaderLeakDetector(LEAK_DETECTION_RESTART_THRESHOLD);
+    private final List<Runnable> readinessListeners = new CopyOnWriteArrayList<>();
     private final Logger logger = LoggerHelpers.logger();
     private Thread appThread;
-    private ClassLoader classLoader;
+    private volatile GenerationContext context;
+    // Provided by the caller, or created on demand for port probes
+    private final ScheduledExecutorService scheduler;
+    private ScheduledExecutorService portProbeExecutor;
+    // Number of the running generation and of the most recently started one
+    private int generation = 0;
+    private int lastGeneration = 0;
+    private volatile SubpackageClassLoader classLoader;
+    // Generation an overlapping restart waits for, see abortBoot()
+    private volatile GenerationContext bootingContext;
+    private Set<String> previousGenerationClassNames = Set.of();
 
     public ApplicationLoader(String mainClass, String[] args, Collection<String> packagePrefixes, URL[] urls, Duration shutdownPollingInterval) {
+        this(mainClass, args, packagePrefixes, urls, shutdownPollingInterval, DEFAULT_SHUTDOWN_TIMEOUT, new ReadinessProbe.MainInvoked(), false, false);
+    }
+
+    public ApplicationLoader(String mainClass, String[] args, Collection<String> packagePrefixes, URL[] urls, Duration shutdownPollingInterval, Duration shutdownTimeout, ReadinessProbe readinessProbe, boolean layeredClassLoading, boolean warmUp) {
+        this(mainClass, args, packagePrefixes, urls, shutdownPollingInterval, shutdownTimeout, readinessProbe, layeredClassLoading, warmUp, false, null);
+    }
+
+    /**
+     * @param overlappingRestarts start the new generation before stopping the running one, see {@link #restart()}
+     * @param scheduler           runs the readiness probes, or null to create an own scheduler on demand
+     */
+    public ApplicationLoader(String mainClass, String[] args, Collection<String> packagePrefixes, URL[] urls, Duration shutdownPollingInterval, Duration shutdownTimeout, ReadinessProbe readinessProbe, boolean layeredClassLoading, boolean warmUp, boolean overlappingRestarts, ScheduledExecutorService scheduler) {
+        this(mainClass, args, packagePrefixes, urls, shutdownPollingInterval, shutdownTimeout, readinessProbe, layeredClassLoading, warmUp, overlappingRestarts, scheduler, null, null);
+    }
+
+    /**
+     * @param classPathIndex index of the class path directories that is kept up to date by the caller, or null to
+     *                       probe the class path on every lookup
+     * @param parallelPool   warms up classes, or null to create an own pool if warm-up is enabled
+     */
+    ApplicationLoader(String mainClass, String[] args, Collection<String> packagePrefixes, URL[] urls, Duration shutdownPollingInterval, Duration shutdownTimeout, ReadinessProbe readinessProbe, boolean layeredClassLoading, boolean warmUp, boolean overlappingRestarts, ScheduledExecutorService scheduler, ClassPathIndex classPathIndex, ExecutorService parallelPool) {
         this.mainClass = mainClass;
         this.args = args;
         this.packagePrefixes = packagePrefixes;
         this.urls = urls;
         this.shutdownPollingInterval = shutdownPollingInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.readinessProbe = readinessProbe;
+        this.classPathIndex = classPathIndex;
+        this.classLoaderLayers = layeredClassLoading ? new ClassLoaderLayers(urls, packagePrefixes, classPathIndex) : null;
+        if (!warmUp) {
+            this.classWarmUp = null;
+        } else if (parallelPool != null) {
+            this.classWarmUp = new ClassWarmUp(parallelPool);
+        } else {
+            this.classWarmUp = new ClassWarmUp(Runtime.getRuntime().availableProcessors());
+        }
+        this.scheduler = scheduler;
+        if (overlappingRestarts && layeredClassLoading) {
+            // The reloadable layer of the running generation is closed when the next generation is created
+            logger.warning("Overlapping restarts are not supported with layered class loading and are disabled");
+        } else if (overlappingRestarts && readinessProbe instanceof ReadinessProbe.PortListening) {
+            logger.warning("The port of the running generation is reported as ready for the new generation with overlapping restarts, use the signal readiness probe instead");
+        }
+        this.overlappingRestarts = overlappingRestarts && !layeredClassLoading;
     }
 
     public synchronized void start() {
-        Thread.currentThread().setName("hotswap");
-
         logger.info("Starting Application " + mainClass);
+        leakDetector.check();
+        generation = ++lastGeneration;
 
+        long classLoaderStartNanos = System.nanoTime();
         ClassLoader parentClassLoader = getClass().getClassLoader();
-        classLoader = new SubpackageClassLoader(
-                urls,
-                parentClassLoader,
-                packagePrefixes
-        );
+        if (classLoaderLayers != null) {
+            classLoader = classLoaderLayers.newGeneration(parentClassLoader);
+        } else {
+            classLoader = SubpackageClassLoader.withClassNameFilter(
+                    urls,
+                    parentClassLoader,
+                    SubpackageClassLoader.packagePrefixFilter(packagePrefixes),
+                    classPathIndex
+            );
+        }
+        restartMetrics.record(RestartMetrics.Phase.CLASS_LOADER, System.nanoTime() - classLoaderStartNanos);
+
+        if (classWarmUp != null && !previousGenerationClassNames.isEmpty()) {
+            // Load the classes of the previous generation concurrently with main
+            SubpackageClassLoader currentClassLoader = classLoader;
+            classWarmUp.warmUp(currentClassLoader, previousGenerationClassNames, () -> classLoader != currentClassLoader);
+        }
 
         // Start the application in a new thread
-        appThread = new Thread(() -> {
+        GenerationContext context = GenerationContext.create(handoffRegistry, mainClass);
+        this.context = context;
+        SubpackageClassLoader generationClassLoader = classLoader;
+        if (readinessProbe instanceof ReadinessProbe.PortListening portListening) {
+            probePort(context, portListening.port());
+        }
+        appThread = new Thread(context.threadGroup(), () -> {
+            long mainStartNanos = System.nanoTime();
             Thread.currentThread().setName("main");
+            context.bindToCurrentThread();
             try {
-                Class<?> clazz = classLoader.loadClass(mainClass);
+                Class<?> clazz = generationClassLoader.loadClass(mainClass);
                 Method mainMethod = clazz.getMethod("main", String[].class);
+                restartMetrics.record(RestartMetrics.Phase.MAIN, System.nanoTime() - mainStartNanos);
+                long mainInvokedNanos = System.nanoTime();
+                context.readiness().thenRun(() -> {
+                    restartMetrics.generationReady(System.nanoTime() - mainInvokedNanos);
+                    readinessListeners.forEach(Runnable::run);
+                });
+                if (readinessProbe instanceof ReadinessProbe.MainInvoked) {
+                    context.ready();
+                }
                 mainMethod.invoke(null, (Object) args);
             } catch (Exception e) {
                 if (e.getCause() instanceof InterruptedException) {
                     logger.fine("App Thread was interrupted");
                 } else {
+                    context.readiness().completeExceptionally(e);
                     logger.severe("Failed to invoke main method on " + mainClass + ".");
-                    stop();
+                    if (!overlappingRestarts) {
+                        // With overlapping restarts, the restart waiting for this generation stops it
+                        stop();
+                    }
                     throw new RuntimeException(e);
                 }
             }
         });
+        // Restarts are triggered from daemon threads, but the application must keep the JVM alive like a regular main thread
+        appThread.setDaemon(false);
         appThread.start();
     }
 
     public synchronized void stop() {
+        stopApplication();
+        if (classLoaderLayers != null) {
+            classLoaderLayers.invalidateAll();
+        }
+    }
+
+    private void stopApplication() {
+        stopGeneration(generation, appThread, context, classLoader);
+        appThread = null;
+        context = null;
+        classLoader = null;
+    }
+
+    private void stopGeneration(int generation, Thread appThread, GenerationContext context, SubpackageClassLoader classLoader) {
         logger.info("Stopping Application " + mainClass);
+        ThreadGroup threadGroup = context != null ? context.threadGroup() : null;
+        if (context != null) {
+            // Wakes up threads waiting for a generation that will never be ready
+            context.readiness().cancel(false);
+        }
         if (appThread != null) {
-            logger.info("Interrupting existing application thread");
-            appThread.interrupt();
+            long stopStartNanos = System.nanoTime();
+            long deadline = stopStartNanos + shutdownTimeout.toNanos();
             try {
-                appThread.join(shutdownPollingInterval.toMillis());
-                while (appThread.isAlive()) {
+                runShutdownCallbacks(context, deadline);
+                logger.info("Interrupting existing application thread");
+                appThread.interrupt();
+                appThread.join(remainingMillis(deadline));
+                while (appThread.isAlive() && System.nanoTime() < deadline) {
                     logger.warning("Application thread is still running after interrupt.");
-                    appThread.join(shutdownPollingInterval.toMillis());
+                    appThread.join(remainingMillis(deadline));
                 }
+                // Even if the main thread is stuck, all other threads get the chance to stop before they are abandoned
+                stopRemainingThreads(context, appThread, deadline);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
-            appThread = null;
+            abandonStuckThreads(context);
+            restartMetrics.record(RestartMetrics.Phase.STOP, System.nanoTime() - stopStartNanos);
         }
 
         logger.fine("Clean up previous class loader and application instance");
 
-        if (classLoader instanceof Closeable) {
+        if (classLoader != null) {
+            if (classWarmUp != null) {
+                previousGenerationClassNames = classLoader.getDefinedClassNames();
+            }
+            long closeStartNanos = System.nanoTime();
             try {
-                ((Closeable) classLoader).close();
+                classLoader.close();
             } catch (Exception e) {
                 logger.warning("Failed to close class loader: " + e.getMessage());
             }
+            restartMetrics.record(RestartMetrics.Phase.CLOSE, System.nanoTime() - closeStartNanos);
+            leakDetector.retire(generation, classLoader, threadGroup);
+        }
+    }
+
+    /**
+     * Waits until the current generation of the application is ready.
+     *
+     * @return false if the generation is not ready within the given timeout, failed or was stopped
+     */
+    public boolean awaitReady(Duration timeout) {
+        GenerationContext context = this.context;
+        if (context == null) {
+            return false;
+        }
+        try {
+            context.readiness().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warning("Application did not become ready within " + timeout.toMillis() + "ms");
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void probePort(GenerationContext context, int port) {
+        if (scheduler == null && portProbeExecutor == null) {
+            portProbeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hotswap-readiness");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        ScheduledExecutorService executor = scheduler != null ? scheduler : portProbeExecutor;
+        ScheduledFuture<?> probe = executor.scheduleWithFixedDelay(() -> {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), (int) PORT_PROBE_INTERVAL.toMillis());
+                context.ready();
+            } catch (IOException e) {
+                // Not listening yet
+            }
+        }, 0, PORT_PROBE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        context.readiness().whenComplete((result, e) -> probe.cancel(false));
+    }
+
+    private void runShutdownCallbacks(GenerationContext context, long deadline) throws InterruptedException {
+        List<Lifecycle> callbacks = new ArrayList<>(context.shutdownCallbacks());
+        if (callbacks.isEmpty()) {
+            return;
+        }
+        Collections.reverse(callbacks);
+        // Runs in the generation's thread group, so a callback that does not return is abandoned like any other thread
+        Thread shutdownThread = new Thread(context.threadGroup(), () -> {
+            for (Lifecycle callback : callbacks) {
+                try {
+                    callback.stop();
+                } catch (Exception e) {
+                    logger.warning("Shutdown callback failed: " + e);
+                }
+            }
+        }, "hotswap-shutdown");
+        shutdownThread.start();
+        join(shutdownThread, deadline);
+    }
+
+    /**
+     * Interrupts the threads the application started itself and grants them one polling interval to terminate.
+     */
+    private void stopRemainingThreads(GenerationContext context, Thread appThread, long deadline) throws InterruptedException {
+        // The main thread was interrupted already, interrupting it again could cut its shutdown procedure short
+        List<Thread> threads = new ArrayList<>(context.liveThreads());
+        threads.remove(appThread);
+        if (threads.isEmpty()) {
+            return;
+        }
+        threads.forEach(Thread::interrupt);
+        long gracePeriodDeadline = Math.min(deadline, System.nanoTime() + shutdownPollingInterval.toNanos());
+        for (Thread thread : threads) {
+            join(thread, gracePeriodDeadline);
+        }
+    }
+
+    private void abandonStuckThreads(GenerationContext context) {
+        for (Thread thread : context.liveThreads()) {
+            StringBuilder message = new StringBuilder("Abandoning thread '" + thread.getName() + "' which did not stop in time");
+            for (StackTraceElement element : thread.getStackTrace()) {
+                message.append(System.lineSeparator()).append("\tat ").append(element);
+            }
+            logger.warning(message.toString());
+        }
+    }
+
+    private void join(Thread thread, long deadline) throws InterruptedException {
+        while (thread.isAlive() && System.nanoTime() < deadline) {
+            thread.join(remainingMillis(deadline));
+        }
+    }
+
+    private long remainingMillis(long deadline) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        // join(0) would wait forever
+        return Math.max(1, Math.min(remaining, shutdownPollingInterval.toMillis()));
+    }
+
+    /**
+     * Stops the application and releases all threads of this loader. A provided scheduler is not shut down.
+     */
+    public synchronized void close() {
+        stop();
+        if (portProbeExecutor != null) {
+            portProbeExecutor.shutdownNow();
+            portProbeExecutor = null;
+        }
+        if (classWarmUp != null) {
+            classWarmUp.close();
         }
-        classLoader = null;
-        System.gc();
     }
 
+    /**
+     * Registers a listener that is invoked each time a generation of the application is ready.
+     */
+    void onReady(Runnable listener) {
+        readinessListeners.add(listener);
+    }
+
+    RestartMetrics getRestartMetrics() {
+        return restartMetrics;
+    }
+
+    /**
+     * Returns the class loader of the running generation, whose parent is the stable layer in layered mode.
+     */
+    SubpackageClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Returns the number of generations whose class loader is still in memory, including the running one.
+     */
+    public int getLiveGenerationCount() {
+        return leakDetector.retainedGenerationCount() + (classLoader != null ? 1 : 0);
+    }
+
+    /**
+     * Returns the registry that keeps objects alive across restarts, see {@link Hotswap#handoff()}.
+     */
+    public HandoffRegistry getHandoffRegistry() {
+        return handoffRegistry;
+    }
+
+    /**
+     * Restarts the application. With overlapping restarts, the new generation is started while the running one keeps
+     * serving and the running generation is only stopped once the new one is ready. Applications share resources
+     * such as server sockets between both generations via {@link Hotswap#handoff()}.
+     */
     public synchronized void restart() {
+        restartMetrics.restartStarted();
+        restartGeneration();
+    }
+
+    private void restartGeneration() {
+        if (overlappingRestarts) {
+            restartOverlapping();
+            return;
+        }
         logger.info("Restarting Application " + mainClass);
         stop();
         start();
     }
+
+    /**
+     * Makes an overlapping restart stop waiting for its new generation to boot, e.g. because newer code is available
+     * already. The new generation is stopped and the previous one keeps running until the next restart. Has no
+     * effect if no restart is waiting.
+     */
+    public void abortBoot() {
+        GenerationContext context = bootingContext;
+        if (context != null) {
+            context.readiness().cancel(false);
+        }
+    }
+
+    private void restartOverlapping() {
+        logger.info("Restarting Application " + mainClass + " next to the running generation");
+        int previousGeneration = generation;
+        Thread previousAppThread = appThread;
+        GenerationContext previousContext = context;
+        SubpackageClassLoader previousClassLoader = classLoader;
+        if (classWarmUp != null && previousClassLoader != null) {
+            previousGenerationClassNames = previousClassLoader.getDefinedClassNames();
+        }
+
+        start();
+        boolean previousIsReady = previousContext != null
+                && previousContext.readiness().isDone()
+                && !previousContext.readiness().isCompletedExceptionally();
+        GenerationContext newContext = context;
+        bootingContext = newContext;
+        boolean ready;
+        try {
+            ready = awaitReady(OVERLAPPING_READINESS_TIMEOUT);
+        } finally {
+            bootingContext = null;
+        }
+        if (ready || !previousIsReady) {
+            stopGeneration(previousGeneration, previousAppThread, previousContext, previousClassLoader);
+        } else {
+            if (newContext.readiness().isCancelled()) {
+                logger.fine("Aborted boot of the new generation of " + mainClass + ", the previous generation keeps running");
+            } else {
+                logger.warning("New generation of " + mainClass + " is not ready, the previous generation keeps running");
+            }
+            stopApplication();
+            generation = previousGeneration;
+            appThread = previousAppThread;
+            context = previousContext;
+            classLoader = previousClassLoader;
+        }
+    }
+
+    /**
+     * Applies the given updates to the running generation without restarting it, if they only change method bodies.
+     *
+     * @return true if the updates were applied, false if the application must be restarted instead
+     */
+    synchronized boolean redefine(ClassRedefinition classRedefinition, PathUpdates pathUpdates) {
+        if (classLoader == null || classLoaderLayers != null || generation != lastGeneration) {
+            // Classes of the stable layer are not defined by the class loader of the generation, and the changes of
+            // a newer generation that failed or was aborted are missing in the running one
+            return false;
+        }
+        return classRedefinition.redefine(classLoader, pathUpdates);
+    }
+
+    /**
+     * Restarts the application. In layered mode, the given updates determine which class loader layers are reloaded.
+     */
+    public synchronized void restart(PathUpdates pathUpdates) {
+        restartMetrics.restartStarted();
+        if (classLoaderLayers == null) {
+            restartGeneration();
+            return;
+        }
+        logger.info("Restarting Application " + mainClass);
+        stopApplication();
+        classLoaderLayers.invalidate(pathUpdates);
+        start();
+    }
 }
@@ -0,0 +1,202 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Watcher} that blocks on {@link WatchService#take()} instead of polling. Watched directories are tracked
+ * by their watch key, so the changed path is resolved from the key without a lookup. The file system is only
+ * accessed to check whether a created entry is a directory, which then is registered and scanned. When the watch
+ * service overflows, only the directory of the affected key is rescanned and diffed against a {@link DirectorySnapshot}.
+ */
+class BlockingFileSystemWatcher implements Watcher {
+    private static final WatchEvent.Kind<?>[] EVENT_KINDS = {
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE
+    };
+    private final Logger logger = LoggerHelpers.logger();
+    private final Set<Path> watchDirectories;
+    private final Set<Path> watchFiles;
+    private final Consumer<FileSystemEvent> onChange;
+    private final WatchService watchService;
+    // Directories that are watched recursively, or only for the watch files they contain
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> fileDirectories = new ConcurrentHashMap<>();
+    private final DirectorySnapshot snapshot = new DirectorySnapshot();
+    private Thread thread;
+
+    BlockingFileSystemWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) throws IOException {
+        this.watchDirectories = watchDirectories.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.watchFiles = watchFiles.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    @Override
+    public void start() throws IOException {
+        logger.info("Starting watch service");
+        for (Path watchDirectory : watchDirectories) {
+            if (Files.isDirectory(watchDirectory)) {
+                logger.fine("Watching directory " + watchDirectory);
+                register(watchDirectory, false);
+            }
+        }
+        for (Path watchFile : watchFiles) {
+            Path parent = watchFile.getParent();
+            if (Files.isDirectory(parent)) {
+                logger.fine("Watching file " + watchFile);
+                fileDirectories.put(parent.register(watchService, EVENT_KINDS), parent);
+            } else {
+                logger.warning("Cannot watch " + watchFile + " because its directory does not exist");
+            }
+        }
+        thread = new Thread(this::processEvents, "filewatch-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        logger.info("Stopping watch service");
+        // Wakes up the thread blocked in take()
+        watchService.close();
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = directories.get(watchKey);
+            boolean recursive = directory != null;
+            if (!recursive) {
+                directory = fileDirectories.get(watchKey);
+            }
+            if (directory != null) {
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    processEvent(directory, recursive, event);
+                }
+            }
+
+            if (!watchKey.reset()) {
+                directories.remove(watchKey);
+                fileDirectories.remove(watchKey);
+                logger.fine(() -> watchKey.watchable() + " has been unregistered");
+            }
+        }
+    }
+
+    private void processEvent(Path directory, boolean recursive, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            logger.fine(() -> "Watch service overflow for " + directory + ", rescanning it");
+            rescan(directory, recursive);
+            return;
+        }
+
+        Path changedFile = directory.resolve((Path) event.context());
+        EventType eventType = toEventType(event.kind());
+        if (!recursive) {
+            if (watchFiles.contains(changedFile)) {
+                notify(changedFile, eventType);
+            }
+        } else if (eventType == EventType.CREATED && Files.isDirectory(changedFile, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                // Files created before the directory was registered would be missed otherwise
+                register(changedFile, true);
+            } catch (IOException e) {
+                logger.warning("Failed to watch directory " + changedFile + ": " + e.getMessage());
+            }
+        } else {
+            notify(changedFile, eventType);
+        }
+    }
+
+    /**
+     * Registers the given directory and its subdirectories. If {@code notify} is set, all files found are reported as created.
+     */
+    private void register(Path directory, boolean notify) throws IOException {
+        if (Files.isHidden(directory)) {
+            return;
+        }
+        directories.put(directory.register(watchService, EVENT_KINDS), directory);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    register(entry, notify);
+                } else if (notify) {
+                    notify(entry, EventType.CREATED);
+                } else {
+                    snapshot.put(entry, attributes);
+                }
+            }
+        }
+        snapshot.put(directory, Files.readAttributes(directory, BasicFileAttributes.class));
+    }
+
+    /**
+     * Recovers the events of a directory that were lost by diffing it against the snapshot.
+     */
+    private void rescan(Path directory, boolean recursive) {
+        if (!recursive) {
+            // Unchanged files are dropped later on by their content hash
+            watchFiles.stream()
+                    .filter(file -> directory.equals(file.getParent()) && Files.exists(file))
+                    .forEach(file -> notify(file, EventType.MODIFIED));
+            return;
+        }
+        try {
+            DirectorySnapshot.Rescan rescan = snapshot.rescan(directory);
+            rescan.events().forEach(event -> notify(event.path(), event.eventType()));
+            for (Path newDirectory : rescan.newDirectories()) {
+                register(newDirectory, true);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to rescan directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void notify(Path file, EventType eventType) {
+        logger.fine(() -> "Received event " + eventType + " for file " + file);
+        FileSystemEvent event = new FileSystemEvent(file, eventType);
+        snapshot.update(event);
+        onChange.accept(event);
+    }
+
+    private static EventType toEventType(WatchEvent.Kind<?> kind) {
+        if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+            return EventType.MODIFIED;
+        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            return EventType.DELETED;
+        } else if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            return EventType.CREATED;
+        } else {
+            throw new IllegalStateException("Unknown event kind " + kind + " received");
+        }
+    }
+}
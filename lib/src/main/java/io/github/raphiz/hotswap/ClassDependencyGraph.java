@@ -0,0 +1,129 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Package level dependency graph of the classes in the given class path directories.
+ * Packages are the unit of reloading because package-private access only works within the same class loader.
+ */
+class ClassDependencyGraph {
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private final Logger logger = LoggerHelpers.logger();
+    private final List<Path> roots;
+    private final Map<String, Set<String>> referencedClassNames = new HashMap<>();
+
+    ClassDependencyGraph(Collection<Path> roots) {
+        this.roots = roots.stream()
+                .map(Path::toAbsolutePath)
+                .map(Path::normalize)
+                .toList();
+    }
+
+    void scan() {
+        referencedClassNames.clear();
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(ClassDependencyGraph::isClassFile).forEach(this::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        logger.fine(() -> "Scanned " + referencedClassNames.size() + " classes");
+    }
+
+    /**
+     * Applies the given updates to the graph and returns the packages of all changed classes,
+     * or an empty optional if something other than a class file changed.
+     */
+    Optional<Set<String>> update(PathUpdates pathUpdates) {
+        Set<String> changedPackages = new HashSet<>();
+        boolean onlyClassFilesChanged = true;
+        for (Path path : pathUpdates.deleted()) {
+            Optional<String> className = classNameOf(path);
+            if (className.isPresent()) {
+                referencedClassNames.remove(className.get());
+                changedPackages.add(ClassFile.packageName(className.get()));
+            } else {
+                onlyClassFilesChanged = false;
+            }
+        }
+        for (Path path : concat(pathUpdates.created(), pathUpdates.modified())) {
+            Optional<String> className = classNameOf(path);
+            if (className.isPresent() && Files.isRegularFile(path)) {
+                add(path);
+                changedPackages.add(ClassFile.packageName(className.get()));
+            } else if (!Files.isDirectory(path)) {
+                onlyClassFilesChanged = false;
+            }
+        }
+        return onlyClassFilesChanged ? Optional.of(changedPackages) : Optional.empty();
+    }
+
+    /**
+     * Returns the given packages together with all packages that (transitively) depend on them.
+     */
+    Set<String> dependentPackages(Set<String> packages) {
+        Map<String, Set<String>> dependents = new HashMap<>();
+        referencedClassNames.forEach((className, references) -> {
+            String packageName = ClassFile.packageName(className);
+            for (String reference : references) {
+                String referencedPackage = ClassFile.packageName(reference);
+                if (!referencedPackage.equals(packageName)) {
+                    dependents.computeIfAbsent(referencedPackage, it -> new HashSet<>()).add(packageName);
+                }
+            }
+        });
+
+        Set<String> result = new HashSet<>(packages);
+        Deque<String> queue = new ArrayDeque<>(packages);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(queue.poll(), Set.of())) {
+                if (result.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void add(Path classFile) {
+        try {
+            ClassFile parsed = ClassFile.parse(Files.readAllBytes(classFile));
+            referencedClassNames.put(parsed.className(), parsed.referencedClassNames());
+        } catch (IOException e) {
+            logger.warning("Failed to read class file " + classFile + ": " + e.getMessage());
+        }
+    }
+
+    private Optional<String> classNameOf(Path path) {
+        if (!isClassFile(path)) {
+            return Optional.empty();
+        }
+        Path normalized = path.toAbsolutePath().normalize();
+        return roots.stream()
+                .filter(normalized::startsWith)
+                .findFirst()
+                .map(root -> root.relativize(normalized).toString())
+                .map(it -> it.substring(0, it.length() - CLASS_FILE_EXTENSION.length()))
+                .map(it -> it.replace(normalized.getFileSystem().getSeparator(), "."));
+    }
+
+    private static boolean isClassFile(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(CLASS_FILE_EXTENSION);
+    }
+
+    private static List<Path> concat(Set<Path> first, Set<Path> second) {
+        List<Path> result = new ArrayList<>(first);
+        result.addAll(second);
+        return result;
+    }
+}
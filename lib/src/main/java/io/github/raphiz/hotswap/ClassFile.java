@@ -0,0 +1,134 @@
+package io.github.raphiz.hotswap;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimal class file reader that extracts the information hotswap needs from the constant pool
+ * (see <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">JVMS chapter 4</a>).
+ */
+record ClassFile(String className, Set<String> referencedClassNames, Structure structure) {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    static ClassFile parse(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8Entries = new String[constantPoolCount];
+        int[] classEntries = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8Entries[i] = in.readUTF();
+                case 7 -> classEntries[i] = in.readUnsignedShort();
+                case 8, 16, 19, 20 -> in.skipBytes(2);
+                case 15 -> in.skipBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+                case 5, 6 -> {
+                    in.skipBytes(8);
+                    i++; // long and double entries take up two slots
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag + " at index " + i);
+            }
+        }
+
+        int accessFlags = in.readUnsignedShort();
+        String className = toBinaryName(utf8Entries[classEntries[in.readUnsignedShort()]]);
+        int superClassIndex = in.readUnsignedShort();
+        String superClassName = superClassIndex == 0 ? null : toBinaryName(utf8Entries[classEntries[superClassIndex]]);
+        List<String> interfaceNames = new ArrayList<>();
+        int interfacesCount = in.readUnsignedShort();
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(toBinaryName(utf8Entries[classEntries[in.readUnsignedShort()]]));
+        }
+        Set<String> fields = readMembers(in, utf8Entries);
+        Set<String> methods = readMembers(in, utf8Entries);
+        Structure structure = new Structure(accessFlags, superClassName, List.copyOf(interfaceNames), fields, methods);
+
+        Set<String> referencedClassNames = new HashSet<>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            if (classEntries[i] != 0) {
+                addClassEntry(referencedClassNames, utf8Entries[classEntries[i]]);
+            } else if (utf8Entries[i] != null) {
+                // Descriptors and signatures reference types that do not necessarily have a class entry
+                addDescriptorTypes(referencedClassNames, utf8Entries[i]);
+            }
+        }
+        referencedClassNames.remove(className);
+
+        return new ClassFile(className, Set.copyOf(referencedClassNames), structure);
+    }
+
+    /**
+     * Everything of a class that the JVM does not allow to change when redefining it, i.e. all but the method bodies
+     * (see {@link java.lang.instrument.Instrumentation#redefineClasses}). Members are described by their access
+     * flags, name and descriptor.
+     */
+    record Structure(int accessFlags, String superClassName, List<String> interfaceNames, Set<String> fields, Set<String> methods) {
+    }
+
+    private static Set<String> readMembers(DataInputStream in, String[] utf8Entries) throws IOException {
+        Set<String> members = new HashSet<>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int accessFlags = in.readUnsignedShort();
+            String name = utf8Entries[in.readUnsignedShort()];
+            String descriptor = utf8Entries[in.readUnsignedShort()];
+            members.add(accessFlags + " " + name + " " + descriptor);
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                in.readUnsignedShort(); // attribute name
+                in.skipNBytes(Integer.toUnsignedLong(in.readInt()));
+            }
+        }
+        return Set.copyOf(members);
+    }
+
+    static String packageName(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot == -1 ? "" : className.substring(0, lastDot);
+    }
+
+    private static void addClassEntry(Set<String> classNames, String internalName) {
+        if (internalName.startsWith("[")) {
+            addDescriptorTypes(classNames, internalName);
+        } else {
+            classNames.add(toBinaryName(internalName));
+        }
+    }
+
+    private static void addDescriptorTypes(Set<String> classNames, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != 'L' || (i > 0 && "([);<>:+-*^".indexOf(value.charAt(i - 1)) == -1)) {
+                continue;
+            }
+            int end = i + 1;
+            while (end < length && isInternalNameCharacter(value.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1 && end < length && (value.charAt(end) == ';' || value.charAt(end) == '<')) {
+                classNames.add(toBinaryName(value.substring(i + 1, end)));
+            }
+            i = end - 1;
+        }
+    }
+
+    private static boolean isInternalNameCharacter(char c) {
+        return c == '/' || c == '$' || Character.isJavaIdentifierPart(c);
+    }
+
+    private static String toBinaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Splits the application classes into two class loader layers: a stable layer that survives restarts
+ * and a reloadable layer that is recreated on every restart. A package is moved to the reloadable layer
+ * as soon as it (or a package depending on it) changes. Because no stable package depends on a
+ * reloadable one, the stable layer only has to be dropped if a change affects one of its packages.
+ */
+class ClassLoaderLayers {
+    private final Logger logger = LoggerHelpers.logger();
+    private final URL[] urls;
+    private final Predicate<String> packagePrefixFilter;
+    private final ClassPathIndex classPathIndex;
+    private final ClassDependencyGraph dependencyGraph;
+    private final Set<String> reloadablePackages = new HashSet<>();
+    private boolean dependencyGraphScanned = false;
+    private SubpackageClassLoader stableClassLoader;
+
+    /**
+     * @param classPathIndex index to look up classes with, or null to probe the class path
+     */
+    ClassLoaderLayers(URL[] urls, Collection<String> packagePrefixes, ClassPathIndex classPathIndex) {
+        this.urls = urls;
+        this.packagePrefixFilter = SubpackageClassLoader.packagePrefixFilter(packagePrefixes);
+        this.classPathIndex = classPathIndex;
+        this.dependencyGraph = new ClassDependencyGraph(ClassPathIndex.directories(urls));
+    }
+
+    SubpackageClassLoader newGeneration(ClassLoader parent) {
+        if (stableClassLoader == null) {
+            Set<String> excludedPackages = Set.copyOf(reloadablePackages);
+            stableClassLoader = SubpackageClassLoader.withClassNameFilter(
+                    urls,
+                    parent,
+                    name -> packagePrefixFilter.test(name) && !excludedPackages.contains(ClassFile.packageName(name)),
+                    classPathIndex
+            );
+        }
+        Set<String> includedPackages = Set.copyOf(reloadablePackages);
+        return SubpackageClassLoader.withClassNameFilter(
+                urls,
+                stableClassLoader,
+                name -> includedPackages.contains(ClassFile.packageName(name)),
+                classPathIndex
+        );
+    }
+
+    void invalidate(PathUpdates pathUpdates) {
+        if (!dependencyGraphScanned) {
+            // The graph is built on the first restart, so it already reflects the updated class files
+            dependencyGraph.scan();
+            dependencyGraphScanned = true;
+        }
+
+        Optional<Set<String>> changedPackages = dependencyGraph.update(pathUpdates);
+        if (changedPackages.isEmpty()) {
+            logger.fine("Non-class files changed, reloading all layers");
+            invalidateAll();
+            return;
+        }
+
+        Set<String> affectedPackages = dependencyGraph.dependentPackages(changedPackages.get());
+        if (reloadablePackages.containsAll(affectedPackages)) {
+            logger.fine(() -> "Keeping stable layer, reloading packages " + reloadablePackages);
+        } else {
+            reloadablePackages.addAll(affectedPackages);
+            logger.fine(() -> "Stable layer affected, reloading all layers. Reloadable packages are now " + reloadablePackages);
+            invalidateAll();
+        }
+    }
+
+    void invalidateAll() {
+        if (stableClassLoader != null) {
+            try {
+                stableClassLoader.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close stable class loader: " + e.getMessage());
+            }
+            stableClassLoader = null;
+        }
+    }
+}
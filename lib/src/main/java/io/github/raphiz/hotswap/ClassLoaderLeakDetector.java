@@ -0,0 +1,146 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the class loaders of stopped generations and warns about generations that are still not garbage
+ * collected a number of restarts later. Such a class loader keeps all classes of its generation in memory,
+ * typically because a shared class (e.g. a library or a thread) still references one of its objects.
+ */
+class ClassLoaderLeakDetector {
+    // Shared, a cleaner per instance would start a thread per instance
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final String CANARY_CLASS_NAME = Canary.class.getName();
+    private static final byte[] CANARY_CLASS_BYTES = canaryClassBytes();
+    private final Logger logger = LoggerHelpers.logger();
+    private final int restartThreshold;
+    private final Map<Integer, RetiredGeneration> retiredGenerations = new ConcurrentHashMap<>();
+    private int restarts = 0;
+
+    ClassLoaderLeakDetector(int restartThreshold) {
+        this.restartThreshold = restartThreshold;
+    }
+
+    /**
+     * Starts tracking the class loader of a generation that was stopped.
+     */
+    void retire(int generation, SubpackageClassLoader classLoader, ThreadGroup threadGroup) {
+        retiredGenerations.put(generation, new RetiredGeneration(
+                generation,
+                new WeakReference<>(classLoader),
+                threadGroup,
+                restarts
+        ));
+        // Must not capture the class loader, otherwise it would never become phantom reachable
+        cleaner.register(classLoader, () -> retiredGenerations.remove(generation));
+    }
+
+    /**
+     * Reports all generations that survived the restart threshold, ignoring generations if no classes were
+     * unloaded since the first check after they were retired. Garbage collector statistics cannot tell this: G1 unloads classes in
+     * concurrent cycles, which are only reported as young collections. Instead, a canary class loader is dropped
+     * at the first check after the generation was retired, when the generation is no longer referenced by hotswap.
+     * Once the canary is collected, the generation would have been unloaded as well unless it is leaked.
+     */
+    void check() {
+        restarts++;
+        for (RetiredGeneration retiredGeneration : retiredGenerations.values()) {
+            if (retiredGeneration.unloadingCanary == null) {
+                retiredGeneration.unloadingCanary = newCanary();
+                continue;
+            }
+            if (retiredGeneration.reported
+                    || restarts - retiredGeneration.retiredAtRestart < restartThreshold
+                    || retiredGeneration.unloadingCanary.get() != null) {
+                continue;
+            }
+            SubpackageClassLoader classLoader = retiredGeneration.classLoader.get();
+            if (classLoader == null) {
+                // Collected, the cleaner has not run yet
+                continue;
+            }
+            retiredGeneration.reported = true;
+            StringBuilder message = new StringBuilder("Class loader of generation " + retiredGeneration.generation
+                    + " was not garbage collected " + (restarts - retiredGeneration.retiredAtRestart)
+                    + " restarts after it was stopped and is probably leaked");
+            for (String hint : retainingThreads(classLoader, retiredGeneration.threadGroup)) {
+                message.append(System.lineSeparator()).append("\t").append(hint);
+            }
+            logger.warning(message.toString());
+        }
+    }
+
+    /**
+     * Returns the number of stopped generations whose class loader was not garbage collected yet.
+     */
+    int retainedGenerationCount() {
+        return retiredGenerations.size();
+    }
+
+    private static List<String> retainingThreads(ClassLoader classLoader, ThreadGroup threadGroup) {
+        List<String> hints = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (threadGroup != null && thread.getThreadGroup() == threadGroup) {
+                hints.add("Thread '" + thread.getName() + "' of the generation is still running");
+            } else if (thread.getContextClassLoader() == classLoader) {
+                hints.add("Thread '" + thread.getName() + "' uses it as context class loader");
+            }
+        }
+        return hints;
+    }
+
+    /**
+     * Returns a reference to a new, otherwise unreferenced class loader that defines a class, so it is only
+     * collected when classes are unloaded. The reference is cleared right away if the canary class is not available.
+     */
+    private static WeakReference<ClassLoader> newCanary() {
+        return new WeakReference<>(CANARY_CLASS_BYTES != null ? new CanaryClassLoader() : null);
+    }
+
+    private static byte[] canaryClassBytes() {
+        String resourceName = CANARY_CLASS_NAME.substring(CANARY_CLASS_NAME.lastIndexOf('.') + 1) + ".class";
+        try (InputStream input = ClassLoaderLeakDetector.class.getResourceAsStream(resourceName)) {
+            return input != null ? input.readAllBytes() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Defined by every canary class loader.
+     */
+    private static final class Canary {
+    }
+
+    private static final class CanaryClassLoader extends ClassLoader {
+        private CanaryClassLoader() {
+            super(ClassLoaderLeakDetector.class.getClassLoader());
+            defineClass(CANARY_CLASS_NAME, CANARY_CLASS_BYTES, 0, CANARY_CLASS_BYTES.length);
+        }
+    }
+
+    private static final class RetiredGeneration {
+        private final int generation;
+        private final WeakReference<SubpackageClassLoader> classLoader;
+        private final ThreadGroup threadGroup;
+        private final int retiredAtRestart;
+        // Created by the first check after the generation was retired
+        private WeakReference<ClassLoader> unloadingCanary;
+        private volatile boolean reported = false;
+
+        private RetiredGeneration(int generation, WeakReference<SubpackageClassLoader> classLoader, ThreadGroup threadGroup, int retiredAtRestart) {
+            this.generation = generation;
+            this.classLoader = classLoader;
+            this.threadGroup = threadGroup;
+            this.retiredAtRestart = retiredAtRestart;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Index of the files and package directories in the class path directories, mapping each resource name to the
+ * directories containing it in class path order. Class loaders look up classes and resources with a single hash
+ * lookup instead of probing every directory. The index is shared by all generations and kept up to date with the
+ * events of the file watcher.
+ * <p>
+ * Class loaders consult the index before their remaining class path entries, so only directories that precede all
+ * jars of the class path should be indexed (see {@link #leadingDirectories(URL[])}) to keep the class path order.
+ */
+class ClassPathIndex {
+    private final Logger logger = LoggerHelpers.logger();
+    private final List<Path> directories;
+    private final Map<String, List<Path>> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @param directories the class path directories in class path order
+     */
+    ClassPathIndex(List<Path> directories) {
+        this.directories = directories.stream().map(it -> it.toAbsolutePath().normalize()).toList();
+    }
+
+    void build() {
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(file -> !file.equals(directory)).forEach(file -> add(directory, file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        logger.fine(() -> "Indexed " + resources.size() + " class path resources");
+    }
+
+    /**
+     * Updates the index for a file (or directory) that changed in one of the class path directories.
+     */
+    void update(FileSystemEvent event) {
+        Path path = event.path().toAbsolutePath().normalize();
+        for (Path directory : directories) {
+            if (!path.startsWith(directory) || path.equals(directory)) {
+                continue;
+            }
+            if (event.eventType() == EventType.DELETED) {
+                remove(directory, path);
+            } else if (Files.exists(path)) {
+                // The watchers only report the files of created directories, so their entries are added here
+                for (Path parent = path.getParent(); !parent.equals(directory); parent = parent.getParent()) {
+                    if (!resources.containsKey(resourceName(directory, parent) + "/")) {
+                        add(directory, parent);
+                    }
+                }
+                add(directory, path);
+            }
+        }
+    }
+
+    /**
+     * Returns the first class path directory containing the given resource.
+     */
+    Optional<Path> directoryOf(String name) {
+        List<Path> containingDirectories = lookup(name);
+        return containingDirectories.isEmpty() ? Optional.empty() : Optional.of(containingDirectories.get(0));
+    }
+
+    /**
+     * Returns all class path directories containing the given resource, in class path order.
+     */
+    List<Path> directoriesOf(String name) {
+        return lookup(name);
+    }
+
+    private List<Path> lookup(String name) {
+        if (name.isEmpty()) {
+            // Like URLClassLoader, the empty name resolves to the class path directories themselves
+            return directories.stream().filter(Files::isDirectory).toList();
+        }
+        List<Path> containingDirectories = resources.get(name);
+        if (containingDirectories == null && !name.endsWith("/")) {
+            // Like URLClassLoader, resolve package directories with and without trailing slash
+            containingDirectories = resources.get(name + "/");
+        }
+        return containingDirectories != null ? containingDirectories : List.of();
+    }
+
+    /**
+     * Returns the given class path without the directories covered by this index.
+     */
+    URL[] withoutIndexedDirectories(URL[] urls) {
+        return Arrays.stream(urls).filter(url -> !directories.contains(directory(url))).toArray(URL[]::new);
+    }
+
+    /**
+     * Returns the directories of the given class path that precede its first jar, in class path order.
+     */
+    static List<Path> leadingDirectories(URL[] urls) {
+        List<Path> directories = new ArrayList<>();
+        for (URL url : urls) {
+            Path directory = directory(url);
+            if (directory == null) {
+                break;
+            }
+            directories.add(directory);
+        }
+        return directories;
+    }
+
+    /**
+     * Returns the directories of the given class path in class path order.
+     */
+    static List<Path> directories(URL[] urls) {
+        List<Path> directories = new ArrayList<>();
+        for (URL url : urls) {
+            Path directory = directory(url);
+            if (directory != null) {
+                directories.add(directory);
+            }
+        }
+        return directories;
+    }
+
+    private static Path directory(URL url) {
+        if (!"file".equals(url.getProtocol()) || !url.getPath().endsWith("/")) {
+            return null;
+        }
+        try {
+            return Path.of(url.toURI()).toAbsolutePath().normalize();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid class path URL " + url, e);
+        }
+    }
+
+    private void add(Path directory, Path file) {
+        String resourceName = resourceName(directory, file);
+        if (Files.isDirectory(file)) {
+            resourceName += "/";
+        }
+        resources.compute(resourceName, (name, containingDirectories) -> {
+            if (containingDirectories == null) {
+                return List.of(directory);
+            }
+            if (containingDirectories.contains(directory)) {
+                return containingDirectories;
+            }
+            List<Path> updated = new ArrayList<>(containingDirectories);
+            updated.add(directory);
+            updated.sort(Comparator.comparingInt(directories::indexOf));
+            return List.copyOf(updated);
+        });
+    }
+
+    private void remove(Path directory, Path path) {
+        String name = resourceName(directory, path);
+        if (resources.containsKey(name)) {
+            resources.computeIfPresent(name, (key, containingDirectories) -> without(containingDirectories, directory));
+            return;
+        }
+        // A deleted directory, drop it and everything below it
+        String prefix = name + "/";
+        if (!resources.containsKey(prefix)) {
+            return;
+        }
+        for (String resource : resources.keySet()) {
+            if (resource.startsWith(prefix)) {
+                resources.computeIfPresent(resource, (key, containingDirectories) -> without(containingDirectories, directory));
+            }
+        }
+    }
+
+    private static List<Path> without(List<Path> containingDirectories, Path directory) {
+        List<Path> updated = new ArrayList<>(containingDirectories);
+        updated.remove(directory);
+        return updated.isEmpty() ? null : List.copyOf(updated);
+    }
+
+    private static String resourceName(Path directory, Path file) {
+        String name = directory.relativize(file).toString();
+        return file.getFileSystem().getSeparator().equals("/") ? name : name.replace(file.getFileSystem().getSeparator(), "/");
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.ProtectionDomain;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Applies changes that only affect method bodies by redefining the loaded classes in place, which takes milliseconds
+ * instead of a restart. The structure of each changed class is compared with the class file it was loaded from,
+ * which is recorded when the class is defined. Any other change (new or removed members, a changed hierarchy,
+ * deleted classes or non-class files) requires a restart.
+ */
+class ClassRedefinition implements ClassFileTransformer, AutoCloseable {
+    private final Logger logger = LoggerHelpers.logger();
+    private final Instrumentation instrumentation;
+    // Class files of the classes defined by each class loader, by class name
+    private final Map<ClassLoader, Map<String, byte[]>> definedClassFiles = Collections.synchronizedMap(new WeakHashMap<>());
+
+    ClassRedefinition(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+        instrumentation.addTransformer(this);
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (loader instanceof SubpackageClassLoader && className != null) {
+            definedClassFiles.computeIfAbsent(loader, it -> new ConcurrentHashMap<>()).put(className.replace('/', '.'), classfileBuffer);
+        }
+        // Only observes the class files, never transforms them
+        return null;
+    }
+
+    /**
+     * Redefines the classes of the given class loader that were updated.
+     *
+     * @return true if all updates were applied, false if the application must be restarted instead
+     */
+    boolean redefine(SubpackageClassLoader classLoader, PathUpdates pathUpdates) {
+        if (!pathUpdates.deleted().isEmpty()) {
+            logger.fine("Files were deleted, restart required");
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        Map<String, byte[]> classFiles = definedClassFiles.getOrDefault(classLoader, Map.of());
+        List<ClassDefinition> classDefinitions = new ArrayList<>();
+        Set<Path> updatedPaths = new HashSet<>(pathUpdates.created());
+        updatedPaths.addAll(pathUpdates.modified());
+        try {
+            for (Path path : updatedPaths) {
+                if (!path.getFileName().toString().endsWith(".class")) {
+                    logger.fine(() -> path + " is not a class file, restart required");
+                    return false;
+                }
+                byte[] bytes = Files.readAllBytes(path);
+                ClassFile updated = ClassFile.parse(bytes);
+                Class<?> loadedClass = classLoader.findDefinedClass(updated.className());
+                if (loadedClass == null) {
+                    // Not loaded yet, so the updated version is loaded on first use
+                    continue;
+                }
+                byte[] previousBytes = classFiles.get(updated.className());
+                if (previousBytes == null || !ClassFile.parse(previousBytes).structure().equals(updated.structure())) {
+                    logger.fine(() -> "Structure of " + updated.className() + " changed, restart required");
+                    return false;
+                }
+                classDefinitions.add(new ClassDefinition(loadedClass, bytes));
+            }
+        } catch (IOException e) {
+            logger.fine(() -> "Failed to read updated class files, restart required: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            instrumentation.redefineClasses(classDefinitions.toArray(ClassDefinition[]::new));
+        } catch (ClassNotFoundException | UnmodifiableClassException | RuntimeException | LinkageError e) {
+            logger.fine(() -> "Failed to redefine classes, restart required: " + e);
+            return false;
+        }
+        logger.info("Redefined " + classDefinitions.size() + " classes in " + (System.nanoTime() - startNanos) / 1_000_000 + "ms");
+        return true;
+    }
+
+    @Override
+    public void close() {
+        instrumentation.removeTransformer(this);
+        definedClassFiles.clear();
+    }
+}
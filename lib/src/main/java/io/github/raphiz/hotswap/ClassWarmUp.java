@@ -0,0 +1,66 @@
+package io.github.raphiz.hotswap;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Loads the classes used by the previous generation in parallel, so the application does not have to read and
+ * define them lazily one by one after a restart. The classes are only loaded: the JVM verifies and links them
+ * on first use, and static initializers only run when the application initializes the class as usual.
+ */
+class ClassWarmUp {
+    private final Logger logger = LoggerHelpers.logger();
+    private final ExecutorService pool;
+    private final boolean ownsPool;
+
+    ClassWarmUp(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownsPool = true;
+    }
+
+    /**
+     * @param pool shared pool, which is not shut down by {@link #close()}
+     */
+    ClassWarmUp(ExecutorService pool) {
+        this.pool = pool;
+        this.ownsPool = false;
+    }
+
+    /**
+     * Loads the given classes until all are loaded or {@code cancelled} returns true and returns the number of loaded classes.
+     */
+    CompletableFuture<Integer> warmUp(ClassLoader classLoader, Collection<String> classNames, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        AtomicInteger loadedClasses = new AtomicInteger();
+        CompletableFuture<?>[] futures = classNames.stream()
+                .map(className -> CompletableFuture.runAsync(() -> {
+                    if (cancelled.getAsBoolean()) {
+                        return;
+                    }
+                    try {
+                        Class.forName(className, false, classLoader);
+                        loadedClasses.incrementAndGet();
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        // The class might have been removed or changed incompatibly, main will load what it needs
+                        logger.finer(() -> "Failed to warm up " + className + ": " + e);
+                    }
+                }, pool))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(futures).thenApply(ignored -> {
+            logger.fine(() -> "Warmed up " + loadedClasses.get() + " classes in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return loadedClasses.get();
+        });
+    }
+
+    void close() {
+        if (ownsPool) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Content hashes of all files in the watched directories, used to ignore updates that rewrite a file with identical content.
+ * Files are keyed by their absolute, normalized path, which is how the watchers report them.
+ */
+class ContentHashIndex {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private final Logger logger = LoggerHelpers.logger();
+    private final Collection<Path> roots;
+    private final Map<Path, byte[]> hashes = new ConcurrentHashMap<>();
+
+    ContentHashIndex(Collection<Path> roots) {
+        this.roots = roots;
+    }
+
+    void build() {
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(Files::isRegularFile).forEach(file -> hash(file).ifPresent(hash -> hashes.put(key(file), hash)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        logger.fine(() -> "Indexed content hashes of " + hashes.size() + " files");
+    }
+
+    /**
+     * Removes all created and modified paths whose content is identical to the indexed content and updates the index.
+     */
+    PathUpdates filter(PathUpdates pathUpdates) {
+        PathUpdates.Builder result = PathUpdates.builder();
+        for (Path path : pathUpdates.deleted()) {
+            hashes.remove(key(path));
+            result.add(path, EventType.DELETED);
+        }
+        for (Path path : pathUpdates.created()) {
+            if (contentChanged(path)) {
+                result.add(path, EventType.CREATED);
+            }
+        }
+        for (Path path : pathUpdates.modified()) {
+            if (contentChanged(path)) {
+                result.add(path, EventType.MODIFIED);
+            }
+        }
+        return result.build();
+    }
+
+    private boolean contentChanged(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return true;
+        }
+        Optional<byte[]> hash = hash(path);
+        if (hash.isEmpty()) {
+            return true;
+        }
+        byte[] previousHash = hashes.put(key(path), hash.get());
+        return previousHash == null || !MessageDigest.isEqual(previousHash, hash.get());
+    }
+
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private Optional<byte[]> hash(Path file) {
+        // Streams through a small buffer, a mapped file would keep it open until the mapping is garbage collected
+        try (InputStream input = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+            return Optional.of(digest.digest());
+        } catch (IOException e) {
+            logger.fine(() -> "Failed to hash " + file + ": " + e.getMessage());
+            return Optional.empty();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,18 +2,44 @@ package io.github.raphiz.hotswap;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.instrument.Instrumentation;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-public class DevMode {
+public class DevMode implements HotswapSession {
     private static final Logger logger = LoggerHelpers.logger();
+    private static final Duration DEFAULT_SHUTDOWN_POLLING_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_DEBOUNCE_DURATION = Duration.ofMillis(100);
+
+    private final HotswapScheduler scheduler;
+    private final ApplicationLoader applicationLoader;
+    private final PathUpdateDebouncer restartDebouncer;
+    private final RestartScheduler restartScheduler;
+    private final Watcher watcher;
+    private final List<HotswapListener> listeners;
+    // Null if classes are not redefined
+    private final ClassRedefinition classRedefinition;
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private DevMode(HotswapScheduler scheduler, ApplicationLoader applicationLoader, PathUpdateDebouncer restartDebouncer, RestartScheduler restartScheduler, Watcher watcher, List<HotswapListener> listeners, ClassRedefinition classRedefinition) {
+        this.scheduler = scheduler;
+        this.applicationLoader = applicationLoader;
+        this.restartDebouncer = restartDebouncer;
+        this.restartScheduler = restartScheduler;
+        this.watcher = watcher;
+        this.listeners = listeners;
+        this.classRedefinition = classRedefinition;
+    }
 
     public static class Configuration {
         final String mainClass;
@@ -21,24 +47,51 @@ public class DevMode {
         final Set<String> packagePrefixes;
         final Set<Path> classPath;
         final Duration shutdownPollingInterval;
+        final Duration shutdownTimeout;
+        final ReadinessProbe readinessProbe;
         final Duration debounceDuration;
+        final boolean layeredClassLoading;
+        final Path buildCompletionMarker;
+        final boolean warmUp;
+        final WatcherFactory watcherFactory;
+        final boolean overlappingRestarts;
+        final boolean redefineClasses;
+        final Set<String> restartIncludes;
+        final Set<String> restartExcludes;
+        final Set<String> resourceOnly;
 
         Configuration(String mainClass, String[] args, Set<String> packagePrefixes, Set<Path> classPath, Duration shutdownPollingInterval, Duration debounceDuration) {
+            this(mainClass, args, packagePrefixes, classPath, shutdownPollingInterval, ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT, new ReadinessProbe.MainInvoked(), debounceDuration, false, null, false, WatcherFactory.byName("default"));
+        }
+
+        Configuration(String mainClass, String[] args, Set<String> packagePrefixes, Set<Path> classPath, Duration shutdownPollingInterval, Duration shutdownTimeout, ReadinessProbe readinessProbe, Duration debounceDuration, boolean layeredClassLoading, Path buildCompletionMarker, boolean warmUp, WatcherFactory watcherFactory) {
+            this(mainClass, args, packagePrefixes, classPath, shutdownPollingInterval, shutdownTimeout, readinessProbe, debounceDuration, layeredClassLoading, buildCompletionMarker, warmUp, watcherFactory, false, false, Set.of(), Set.of(), Set.of());
+        }
+
+        Configuration(String mainClass, String[] args, Set<String> packagePrefixes, Set<Path> classPath, Duration shutdownPollingInterval, Duration shutdownTimeout, ReadinessProbe readinessProbe, Duration debounceDuration, boolean layeredClassLoading, Path buildCompletionMarker, boolean warmUp, WatcherFactory watcherFactory, boolean overlappingRestarts, boolean redefineClasses, Set<String> restartIncludes, Set<String> restartExcludes, Set<String> resourceOnly) {
             this.mainClass = mainClass;
             this.args = args;
             this.packagePrefixes = packagePrefixes;
             this.classPath = classPath;
             this.shutdownPollingInterval = shutdownPollingInterval;
+            this.shutdownTimeout = shutdownTimeout;
+            this.readinessProbe = readinessProbe;
             this.debounceDuration = debounceDuration;
+            this.layeredClassLoading = layeredClassLoading;
+            this.buildCompletionMarker = buildCompletionMarker;
+            this.warmUp = warmUp;
+            this.watcherFactory = watcherFactory;
+            this.overlappingRestarts = overlappingRestarts;
+            this.redefineClasses = redefineClasses;
+            this.restartIncludes = restartIncludes;
+            this.restartExcludes = restartExcludes;
+            this.resourceOnly = resourceOnly;
         }
 
         public static Configuration parse(Map<String, String> properties, String[] args) {
             String mainClass = Objects.requireNonNull(properties.get("hotswap.mainClass"), "Main class must be provided");
 
-            Set<Path> classPath = Arrays.stream(properties.getOrDefault("hotswap.classPath", System.getProperty("java.class.path")).split(File.pathSeparator))
-                    .filter((it) -> !it.isBlank())
-                    .map(Path::of)
-                    .collect(Collectors.toSet());
+            Set<Path> classPath = parseClassPath(properties.getOrDefault("hotswap.classPath", System.getProperty("java.class.path")));
 
             if (classPath.isEmpty()) {
                 throw new IllegalArgumentException("At least one output directory to watch must be provided");
@@ -55,8 +108,24 @@ public class DevMode {
             } else {
                 packagePrefixes = null;
             }
-            Duration shutdownPollingInterval = parseDuration(emptyToNull(properties.get("hotswap.shutdownPollingInterval")), Duration.ofSeconds(5));
-            Duration debounceDuration = parseDuration(emptyToNull(properties.get("hotswap.debounceDuration")), Duration.ofMillis(100));
+            Duration shutdownPollingInterval = parseDuration(emptyToNull(properties.get("hotswap.shutdownPollingInterval")), DEFAULT_SHUTDOWN_POLLING_INTERVAL);
+            Duration shutdownTimeout = parseDuration(emptyToNull(properties.get("hotswap.shutdownTimeout")), ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT);
+            ReadinessProbe readinessProbe = ReadinessProbe.parse(Optional.ofNullable(emptyToNull(properties.get("hotswap.readinessProbe"))).orElse("main"));
+            Duration debounceDuration = parseDuration(emptyToNull(properties.get("hotswap.debounceDuration")), DEFAULT_DEBOUNCE_DURATION);
+            boolean layeredClassLoading = Boolean.parseBoolean(properties.get("hotswap.layeredClassLoading"));
+            Path buildCompletionMarker = Optional.ofNullable(emptyToNull(properties.get("hotswap.buildCompletionMarker")))
+                    .map(Path::of)
+                    .orElse(null);
+            boolean warmUp = Boolean.parseBoolean(properties.get("hotswap.warmUp"));
+            String watcher = Optional.ofNullable(emptyToNull(properties.get("hotswap.watcher"))).orElse("default");
+            WatcherFactory watcherFactory = watcher.equals("polling")
+                    ? WatcherFactory.polling(parseDuration(emptyToNull(properties.get("hotswap.pollInterval")), PollingFileSystemWatcher.DEFAULT_POLL_INTERVAL))
+                    : WatcherFactory.byName(watcher);
+            boolean overlappingRestarts = Boolean.parseBoolean(properties.get("hotswap.overlappingRestarts"));
+            boolean redefineClasses = Boolean.parseBoolean(properties.get("hotswap.redefineClasses"));
+            Set<String> restartIncludes = parseList(properties.get("hotswap.restartIncludes"));
+            Set<String> restartExcludes = parseList(properties.get("hotswap.restartExcludes"));
+            Set<String> resourceOnly = parseList(properties.get("hotswap.resourceOnly"));
 
             return new Configuration(
                     mainClass,
@@ -64,56 +133,426 @@ public class DevMode {
                     packagePrefixes,
                     classPath,
                     shutdownPollingInterval,
-                    debounceDuration
+                    shutdownTimeout,
+                    readinessProbe,
+                    debounceDuration,
+                    layeredClassLoading,
+                    buildCompletionMarker,
+                    warmUp,
+                    watcherFactory,
+                    overlappingRestarts,
+                    redefineClasses,
+                    restartIncludes,
+                    restartExcludes,
+                    resourceOnly
             );
         }
 
+        /**
+         * Creates a builder for a configuration of the given main class. All other options default to the same
+         * values as the system properties, the class path defaults to the class path of this JVM.
+         */
+        public static Builder builder(String mainClass) {
+            return new Builder(mainClass);
+        }
+
+        private static Set<Path> parseClassPath(String classPath) {
+            return Arrays.stream(classPath.split(File.pathSeparator))
+                    .filter((it) -> !it.isBlank())
+                    .map(Path::of)
+                    .collect(Collectors.toSet());
+        }
+
+        private static Set<String> parseList(String property) {
+            if (property == null) {
+                return Set.of();
+            }
+            return Arrays.stream(property.split(","))
+                    .map(String::trim)
+                    .filter((it) -> !it.isBlank())
+                    .collect(Collectors.toSet());
+        }
+
         private static String emptyToNull(String value) {
             return (value == null || value.isEmpty()) ? null : value;
         }
+
+        public static class Builder {
+            private final String mainClass;
+            private String[] args = new String[0];
+            private Set<String> packagePrefixes = null;
+            private Set<Path> classPath = parseClassPath(System.getProperty("java.class.path"));
+            private Duration shutdownPollingInterval = DEFAULT_SHUTDOWN_POLLING_INTERVAL;
+            private Duration shutdownTimeout = ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT;
+            private ReadinessProbe readinessProbe = new ReadinessProbe.MainInvoked();
+            private Duration debounceDuration = DEFAULT_DEBOUNCE_DURATION;
+            private boolean layeredClassLoading = false;
+            private Path buildCompletionMarker = null;
+            private boolean warmUp = false;
+            private WatcherFactory watcherFactory = WatcherFactory.byName("default");
+            private boolean overlappingRestarts = false;
+            private boolean redefineClasses = false;
+            private Set<String> restartIncludes = Set.of();
+            private Set<String> restartExcludes = Set.of();
+            private Set<String> resourceOnly = Set.of();
+
+            private Builder(String mainClass) {
+                this.mainClass = Objects.requireNonNull(mainClass, "Main class must be provided");
+            }
+
+            public Builder args(String... args) {
+                this.args = args;
+                return this;
+            }
+
+            /**
+             * Classes in these packages are hot swapped, or all classes except the JDK's if null.
+             */
+            public Builder packagePrefixes(Set<String> packagePrefixes) {
+                this.packagePrefixes = packagePrefixes;
+                return this;
+            }
+
+            public Builder classPath(Set<Path> classPath) {
+                this.classPath = classPath;
+                return this;
+            }
+
+            public Builder shutdownPollingInterval(Duration shutdownPollingInterval) {
+                this.shutdownPollingInterval = shutdownPollingInterval;
+                return this;
+            }
+
+            public Builder shutdownTimeout(Duration shutdownTimeout) {
+                this.shutdownTimeout = shutdownTimeout;
+                return this;
+            }
+
+            public Builder readinessProbe(ReadinessProbe readinessProbe) {
+                this.readinessProbe = readinessProbe;
+                return this;
+            }
+
+            public Builder debounceDuration(Duration debounceDuration) {
+                this.debounceDuration = debounceDuration;
+                return this;
+            }
+
+            public Builder layeredClassLoading(boolean layeredClassLoading) {
+                this.layeredClassLoading = layeredClassLoading;
+                return this;
+            }
+
+            public Builder buildCompletionMarker(Path buildCompletionMarker) {
+                this.buildCompletionMarker = buildCompletionMarker;
+                return this;
+            }
+
+            public Builder warmUp(boolean warmUp) {
+                this.warmUp = warmUp;
+                return this;
+            }
+
+            public Builder watcherFactory(WatcherFactory watcherFactory) {
+                this.watcherFactory = watcherFactory;
+                return this;
+            }
+
+            /**
+             * Starts the new generation before the running one is stopped, see {@link ApplicationLoader#restart()}.
+             */
+            public Builder overlappingRestarts(boolean overlappingRestarts) {
+                this.overlappingRestarts = overlappingRestarts;
+                return this;
+            }
+
+            /**
+             * Redefines classes whose method bodies changed instead of restarting. Requires the JVM to be started
+             * with the hotswap jar as Java agent, see {@link HotswapAgent}.
+             */
+            public Builder redefineClasses(boolean redefineClasses) {
+                this.redefineClasses = redefineClasses;
+                return this;
+            }
+
+            /**
+             * Only changes to files in the class path directories matching one of these globs (e.g.
+             * {@code com/example/**}) trigger a restart, or all files if empty.
+             */
+            public Builder restartIncludes(Set<String> restartIncludes) {
+                this.restartIncludes = restartIncludes;
+                return this;
+            }
+
+            /**
+             * Changes to files in the class path directories matching one of these globs (e.g. {@code **.tmp}) never
+             * trigger a restart.
+             */
+            public Builder restartExcludes(Set<String> restartExcludes) {
+                this.restartExcludes = restartExcludes;
+                return this;
+            }
+
+            /**
+             * Resources matching one of these globs (e.g. {@code templates/**}) are served fresh by the class loader
+             * after a change, so the application is not restarted. Class files always trigger a restart.
+             */
+            public Builder resourceOnly(Set<String> resourceOnly) {
+                this.resourceOnly = resourceOnly;
+                return this;
+            }
+
+            public Configuration build() {
+                if (classPath.isEmpty()) {
+                    throw new IllegalArgumentException("At least one output directory to watch must be provided");
+                }
+                return new Configuration(
+                        mainClass,
+                        args,
+                        packagePrefixes,
+                        classPath,
+                        shutdownPollingInterval,
+                        shutdownTimeout,
+                        readinessProbe,
+                        debounceDuration,
+                        layeredClassLoading,
+                        buildCompletionMarker,
+                        warmUp,
+                        watcherFactory,
+                        overlappingRestarts,
+                        redefineClasses,
+                        restartIncludes,
+                        restartExcludes,
+                        resourceOnly
+                );
+            }
+
+            /**
+             * Builds the configuration and starts the dev mode in this JVM.
+             */
+            public HotswapSession start() throws IOException {
+                return startDevMode(build());
+            }
+        }
     }
 
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // The application's main method runs on a thread named main, restarts run on the scheduler threads
+        Thread.currentThread().setName("hotswap");
         Map<String, String> systemProperties = System.getProperties().entrySet().stream()
                 .collect(Collectors.toMap(e -> (String) e.getKey(), e -> (String) e.getValue()));
         Configuration configuration = Configuration.parse(systemProperties, args);
-        startDevMode(configuration);
+        DevMode devMode = startDevMode(configuration);
+        // All hotswap threads are daemons, so the JVM must be kept alive when the application terminates, e.g. after a failed start
+        devMode.closed.await();
     }
 
-    public static void startDevMode(Configuration configuration) throws IOException {
-        // TODO: Later -> Add support for jars (gradle modules)
+    /**
+     * Starts the application and restarts it on changes until the returned dev mode is closed.
+     */
+    public static DevMode startDevMode(Configuration configuration) throws IOException {
+        HotswapScheduler scheduler = new HotswapScheduler(HotswapScheduler.DEFAULT_THREADS);
         URL[] classPathUrls = configuration.classPath.stream()
                 .map(DevMode::toUrl)
                 .toArray(URL[]::new);
 
-        List<PathMatcher> restartMatchers = configuration.classPath.stream()
-                .map(Path::toAbsolutePath)
-                .map(it -> FileSystems.getDefault().getPathMatcher("glob:" + it + "/**"))
-                .toList();
+        // Jars (e.g. of other modules in a multi module build) are watched individually, directories recursively
+        Set<Path> jars = configuration.classPath.stream()
+                .map(it -> it.toAbsolutePath().normalize())
+                .filter(DevMode::isJar)
+                .collect(Collectors.toSet());
+        Set<Path> directories = configuration.classPath.stream()
+                .map(it -> it.toAbsolutePath().normalize())
+                .filter(it -> !jars.contains(it))
+                .collect(Collectors.toSet());
+
+        RestartFilter restartFilter = new RestartFilter(directories, jars, configuration.restartIncludes, configuration.restartExcludes, configuration.resourceOnly);
+
+        // Built before the application starts, so its class loader never probes the class path directories
+        ClassPathIndex classPathIndex = new ClassPathIndex(ClassPathIndex.leadingDirectories(classPathUrls));
+        classPathIndex.build();
 
         ApplicationLoader applicationLoader = new ApplicationLoader(
                 configuration.mainClass,
                 configuration.args,
                 configuration.packagePrefixes,
                 classPathUrls,
-                configuration.shutdownPollingInterval
+                configuration.shutdownPollingInterval,
+                configuration.shutdownTimeout,
+                configuration.readinessProbe,
+                configuration.layeredClassLoading,
+                configuration.warmUp,
+                configuration.overlappingRestarts,
+                scheduler.executor(),
+                classPathIndex,
+                scheduler.parallelPool()
         );
+        // Must observe the class files of the first generation already
+        ClassRedefinition classRedefinition = createClassRedefinition(configuration);
+        List<HotswapListener> listeners = new CopyOnWriteArrayList<>();
+        applicationLoader.onReady(() -> notifyListeners(listeners, HotswapListener::onReady));
         applicationLoader.start();
+        RestartMetrics restartMetrics = applicationLoader.getRestartMetrics();
+        restartMetrics.registerMBean();
 
-        PathUpdateDebouncer restartDebouncer = new PathUpdateDebouncer(configuration.debounceDuration, pathUpdates -> {
-            logger.fine(() -> "Restarting due to " + pathUpdates);
-            applicationLoader.restart();
-        });
+        ContentHashIndex contentHashIndex = new ContentHashIndex(directories);
+        contentHashIndex.build();
+        JarSnapshots jarSnapshots = new JarSnapshots(jars);
+        jarSnapshots.build();
 
-        new FileSystemWatcher(configuration.classPath, fileSystemEvent -> {
-            if (restartMatchers.stream().anyMatch(matcher -> matcher.matches(fileSystemEvent.path()))) {
-                // Skip delete events for class files during recompilation
+        // Time of the first event since the last restart, or -1
+        AtomicLong firstEventNanos = new AtomicLong(-1);
+        RestartScheduler restartScheduler = new RestartScheduler((changedPathUpdates, requested) -> {
+            if (!requested && classRedefinition != null && applicationLoader.redefine(classRedefinition, changedPathUpdates)) {
+                firstEventNanos.set(-1);
+                return;
+            }
+            if (!changedPathUpdates.isEmpty()) {
+                logger.fine(() -> "Restarting due to " + changedPathUpdates);
+            }
+            long triggeredAtNanos = firstEventNanos.getAndSet(-1);
+            if (triggeredAtNanos != -1) {
+                restartMetrics.restartTriggered(triggeredAtNanos);
+            }
+            notifyListeners(listeners, listener -> listener.beforeRestart(changedPathUpdates));
+            if (requested) {
+                // Reloads all layers, which covers any merged updates as well
+                applicationLoader.restart();
+            } else {
+                applicationLoader.restart(changedPathUpdates);
+            }
+        }, applicationLoader::abortBoot, scheduler.executor());
+        Consumer<PathUpdates> restart = pathUpdates -> {
+            PathUpdates changedPathUpdates = jarSnapshots.expand(contentHashIndex.filter(pathUpdates));
+            if (changedPathUpdates.isEmpty()) {
+                logger.fine(() -> "Skipping restart, content is unchanged for " + pathUpdates);
+                firstEventNanos.set(-1);
+                return;
+            }
+            // Restarts are not awaited, so the debouncer keeps collecting changes while the application restarts
+            restartScheduler.submit(changedPathUpdates);
+        };
+
+        Set<Path> watchDirectories = new HashSet<>(directories);
+        Set<Path> watchFiles = new HashSet<>(jars);
+        Path buildCompletionMarker;
+        PathUpdateDebouncer restartDebouncer;
+        if (configuration.buildCompletionMarker != null) {
+            // Restart exactly when the build signals completion instead of guessing with a timeout
+            buildCompletionMarker = configuration.buildCompletionMarker.toAbsolutePath().normalize();
+            Files.createDirectories(buildCompletionMarker.getParent());
+            // Watched as a file, which the polling watcher only reports once it scanned all directories
+            watchFiles.add(buildCompletionMarker);
+            restartDebouncer = PathUpdateDebouncer.manual(restart, scheduler.executor());
+        } else {
+            buildCompletionMarker = null;
+            restartDebouncer = new PathUpdateDebouncer(configuration.debounceDuration, restart, scheduler.executor());
+        }
+
+        Consumer<FileSystemEvent> onChange = fileSystemEvent -> {
+            classPathIndex.update(fileSystemEvent);
+            if (fileSystemEvent.path().equals(buildCompletionMarker)) {
                 if (fileSystemEvent.eventType() != EventType.DELETED) {
+                    logger.fine("Build completed");
+                    restartDebouncer.flush();
+                }
+            } else {
+                RestartFilter.Decision decision = restartFilter.decide(fileSystemEvent.path());
+                // Skip delete events for class files during recompilation
+                if (decision == RestartFilter.Decision.RESTART && fileSystemEvent.eventType() != EventType.DELETED) {
+                    firstEventNanos.compareAndSet(-1, System.nanoTime());
                     restartDebouncer.submit(fileSystemEvent.path(), fileSystemEvent.eventType());
+                } else if (decision == RestartFilter.Decision.RELOAD) {
+                    // The class path index is up to date already, so the class loader serves the new content
+                    logger.fine(() -> "Reloaded resource " + fileSystemEvent.path() + " without restart");
                 }
             }
-        }).start();
+        };
+        // The polling watcher runs its ticks on the shared scheduler instead of own threads
+        Watcher watcher = configuration.watcherFactory instanceof PollingFileSystemWatcher.Factory pollingWatcherFactory
+                ? pollingWatcherFactory.create(watchDirectories, watchFiles, onChange, scheduler)
+                : configuration.watcherFactory.create(watchDirectories, watchFiles, onChange);
+        watcher.start();
+        return new DevMode(scheduler, applicationLoader, restartDebouncer, restartScheduler, watcher, listeners, classRedefinition);
+    }
+
+    private static ClassRedefinition createClassRedefinition(Configuration configuration) {
+        if (!configuration.redefineClasses) {
+            return null;
+        }
+        Instrumentation instrumentation = HotswapAgent.instrumentation();
+        if (instrumentation == null || !instrumentation.isRedefineClassesSupported()) {
+            logger.warning("Class redefinition requires the JVM to be started with -javaagent:<path to the hotswap jar>, restarting on all changes instead");
+            return null;
+        }
+        if (configuration.layeredClassLoading) {
+            logger.warning("Class redefinition is not supported with layered class loading and is disabled");
+            return null;
+        }
+        return new ClassRedefinition(instrumentation);
+    }
+
+    @Override
+    public void restart() {
+        // Scheduled like restarts due to changes, so it is merged with a pending one and aborts an outdated boot
+        restartScheduler.requestRestart().join();
+    }
+
+    @Override
+    public boolean awaitReady(Duration timeout) {
+        return applicationLoader.awaitReady(timeout);
+    }
+
+    @Override
+    public RestartMetricsMXBean getRestartMetrics() {
+        return applicationLoader.getRestartMetrics();
+    }
+
+    @Override
+    public void addListener(HotswapListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(HotswapListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching for changes, discards pending restarts, stops the application and waits until all threads
+     * of this dev mode have terminated. Threads the application abandoned after the shutdown timeout are left alone.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            watcher.stop();
+        } finally {
+            restartDebouncer.close();
+            restartScheduler.close();
+            // Interrupts a restart in progress, so the application loader is not blocked by it
+            scheduler.close();
+            applicationLoader.close();
+            applicationLoader.getRestartMetrics().unregisterMBean();
+            if (classRedefinition != null) {
+                classRedefinition.close();
+            }
+            closed.countDown();
+        }
+    }
+
+    private static void notifyListeners(List<HotswapListener> listeners, Consumer<HotswapListener> notification) {
+        for (HotswapListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                logger.warning("Listener " + listener + " failed: " + e);
+            }
+        }
+    }
+
+    private static boolean isJar(Path path) {
+        return Files.isRegularFile(path) || path.getFileName().toString().endsWith(".jar");
     }
 
     private static URL toUrl(Path path) {
@@ -0,0 +1,174 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Compact snapshot (path to size and modification time) of the watched directories, kept up to date from the
+ * watch events. When the watch service overflows and drops events, a rescan of a directory against the snapshot
+ * yields exactly the changes that were lost. Files whose content did not change are filtered by their hash later on.
+ */
+class DirectorySnapshot {
+    private static final char SEPARATOR = '/';
+    // File systems update timestamps with a limited resolution (e.g. once per timer tick on Linux), so a file that
+    // was recorded right after it was written may change again without a new timestamp
+    private static final long TIMESTAMP_GRANULARITY_MILLIS = 20;
+    // Sorted by path, so all entries below a directory form a contiguous range
+    private final NavigableMap<String, FileState> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records the given directory tree.
+     */
+    void add(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.forEach(this::update);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void put(Path path, BasicFileAttributes attributes) {
+        entries.put(key(path), FileState.of(attributes));
+    }
+
+    /**
+     * Removes the given path and, if it is a directory, everything below it.
+     */
+    void remove(Path path) {
+        String key = key(path);
+        entries.remove(key);
+        below(key).clear();
+    }
+
+    void update(FileSystemEvent event) {
+        if (event.eventType() == EventType.DELETED) {
+            remove(event.path());
+        } else {
+            update(event.path());
+        }
+    }
+
+    /**
+     * Compares the direct children of the given directory with the snapshot, updates the snapshot and returns
+     * the file events that happened since. Directories that appeared are returned separately, since they have
+     * to be registered and walked by the watcher.
+     */
+    Rescan rescan(Path directory) throws IOException {
+        directory = directory.toAbsolutePath().normalize();
+        List<FileSystemEvent> events = new ArrayList<>();
+        List<Path> newDirectories = new ArrayList<>();
+        Set<String> existing = new HashSet<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                String key = key(child);
+                existing.add(key);
+                FileState state = FileState.of(attributes);
+                FileState previous = entries.put(key, state);
+                if (state.directory()) {
+                    if (previous == null || !previous.directory()) {
+                        newDirectories.add(child);
+                    }
+                } else if (previous == null) {
+                    events.add(new FileSystemEvent(child, EventType.CREATED));
+                } else if (previous.changedTo(state)) {
+                    events.add(new FileSystemEvent(child, EventType.MODIFIED));
+                }
+            }
+        }
+
+        String prefix = key(directory) + SEPARATOR;
+        for (Map.Entry<String, FileState> entry : List.copyOf(below(key(directory)).entrySet())) {
+            String key = entry.getKey();
+            boolean directChild = key.indexOf(SEPARATOR, prefix.length()) == -1;
+            if (directChild && !existing.contains(key)) {
+                if (entry.getValue().directory()) {
+                    below(key).forEach((file, state) -> {
+                        if (!state.directory()) {
+                            events.add(new FileSystemEvent(Path.of(file), EventType.DELETED));
+                        }
+                    });
+                }
+                events.add(new FileSystemEvent(Path.of(key), EventType.DELETED));
+                remove(Path.of(key));
+            }
+        }
+        return new Rescan(events, newDirectories);
+    }
+
+    /**
+     * Compares a single file with the snapshot and updates it.
+     *
+     * @return the type of the change, or empty if the file did not change
+     */
+    Optional<EventType> refresh(Path file) {
+        String key = key(file);
+        FileState previous = entries.get(key);
+        FileState state;
+        try {
+            state = FileState.of(Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        } catch (IOException e) {
+            entries.remove(key);
+            return previous != null ? Optional.of(EventType.DELETED) : Optional.empty();
+        }
+        entries.put(key, state);
+        if (previous == null) {
+            return Optional.of(EventType.CREATED);
+        } else if (previous.changedTo(state)) {
+            return Optional.of(EventType.MODIFIED);
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    private void update(Path path) {
+        try {
+            put(path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        } catch (IOException e) {
+            remove(path);
+        }
+    }
+
+    private NavigableMap<String, FileState> below(String directoryKey) {
+        // '0' is the character following the separator
+        return entries.subMap(directoryKey + SEPARATOR, true, directoryKey + (char) (SEPARATOR + 1), false);
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    record Rescan(List<FileSystemEvent> events, List<Path> newDirectories) {
+    }
+
+    /**
+     * @param racy whether the file was recorded within the timestamp granularity of its last modification
+     */
+    private record FileState(boolean directory, long size, long lastModified, boolean racy) {
+        static FileState of(BasicFileAttributes attributes) {
+            if (attributes.isDirectory()) {
+                return new FileState(true, 0, 0, false);
+            }
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            boolean racy = Math.abs(System.currentTimeMillis() - lastModified) <= TIMESTAMP_GRANULARITY_MILLIS;
+            return new FileState(false, attributes.size(), lastModified, racy);
+        }
+
+        /**
+         * Racy files are reported as changed, since a modification cannot be ruled out by their timestamp.
+         */
+        boolean changedTo(FileState state) {
+            return racy || directory != state.directory || size != state.size || lastModified != state.lastModified;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package io.github.raphiz.hotswap;
+
+import java.nio.file.Path;
+
+public record FileSystemEvent(Path path, EventType eventType) {
+}
@@ -4,21 +4,38 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
-class FileSystemWatcher {
+/**
+ * Default {@link Watcher} that polls a {@link WatchService} and walks newly created directories.
+ */
+class FileSystemWatcher implements Watcher {
     private final Logger logger = LoggerHelpers.logger();
     private final AtomicBoolean active = new AtomicBoolean(false);
     private final Set<Path> watchDirectories;
+    private final Set<Path> watchFiles;
     private final Consumer<FileSystemEvent> onChange;
     private final WatchService watchService;
+    private final Set<Path> recursivelyWatchedDirectories = ConcurrentHashMap.newKeySet();
+    private final DirectorySnapshot snapshot = new DirectorySnapshot();
+    private volatile Thread thread;
 
     public FileSystemWatcher(Set<Path> watchDirectories, Consumer<FileSystemEvent> onChange) throws IOException {
+        this(watchDirectories, Set.of(), onChange);
+    }
+
+    /**
+     * Watches the given directories recursively and the given files individually. Files are watched via their
+     * parent directory, so they are also detected when they are replaced or created later on.
+     */
+    public FileSystemWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) throws IOException {
         this.watchDirectories = watchDirectories;
+        this.watchFiles = watchFiles.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
         this.onChange = onChange;
         this.watchService = FileSystems.getDefault().newWatchService();
     }
@@ -29,6 +46,7 @@ class FileSystemWatcher {
         Files.walkFileTree(path, new SimpleFileVisitor<>() {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                snapshot.put(file, attrs);
                 if (notify) {
                     onChange.accept(new FileSystemEvent(file.toAbsolutePath(), EventType.CREATED));
                 }
@@ -38,6 +56,8 @@ class FileSystemWatcher {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
                 if (!Files.isHidden(dir)) {
+                    snapshot.put(dir, attrs);
+                    recursivelyWatchedDirectories.add(dir.toAbsolutePath().normalize());
                     dir.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
                     return FileVisitResult.CONTINUE;
                 } else {
@@ -47,15 +67,24 @@ class FileSystemWatcher {
         });
     }
 
+    @Override
     public void start() throws IOException {
         logger.info("Starting watch service");
         for (Path watchDirectory : watchDirectories) {
             logger.fine("Watching directory " + watchDirectory);
             watchRecursively(watchDirectory, false);
         }
+        for (Path watchFile : watchFiles) {
+            Path parent = watchFile.getParent();
+            if (Files.isDirectory(parent)) {
+                logger.fine("Watching file " + watchFile);
+                parent.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            } else {
+                logger.warning("Cannot watch " + watchFile + " because its directory does not exist");
+            }
+        }
         active.set(true);
-        Executors.newSingleThreadExecutor().submit(() -> {
-            Thread.currentThread().setName("filewatch-thread");
+        thread = new Thread(() -> {
             while (active.get()) {
                 WatchKey watchKey;
                 try {
@@ -63,6 +92,8 @@ class FileSystemWatcher {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     return;
+                } catch (ClosedWatchServiceException e) {
+                    return;
                 }
                 if (watchKey == null) {
                     continue;
@@ -70,10 +101,18 @@ class FileSystemWatcher {
                 Path directory = (Path) watchKey.watchable();
                 for (WatchEvent<?> event : watchKey.pollEvents()) {
                     if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
-                        logger.warning("WatchService Overflow occurred");
+                        logger.fine(() -> "WatchService overflow occurred for " + directory + ", rescanning it");
+                        rescan(directory);
                     } else {
                         Path changedFile = directory.resolve((Path) event.context());
-                        if (Files.isDirectory(changedFile)) {
+                        if (!recursivelyWatchedDirectories.contains(directory.toAbsolutePath().normalize())) {
+                            // Directory is only watched for individual files
+                            Path normalizedFile = changedFile.toAbsolutePath().normalize();
+                            if (watchFiles.contains(normalizedFile)) {
+                                logger.fine(() -> "Received event " + event.kind().name() + " for file " + changedFile);
+                                onChange.accept(new FileSystemEvent(normalizedFile, toEventType(event)));
+                            }
+                        } else if (Files.isDirectory(changedFile)) {
                             try {
                                 watchRecursively(changedFile, true);
                             } catch (IOException e) {
@@ -81,7 +120,9 @@ class FileSystemWatcher {
                             }
                         } else {
                             logger.fine(() -> "Received event " + event.kind().name() + " for file " + changedFile);
-                            onChange.accept(new FileSystemEvent(changedFile.toAbsolutePath(), toEventType(event)));
+                            FileSystemEvent fileSystemEvent = new FileSystemEvent(changedFile.toAbsolutePath(), toEventType(event));
+                            snapshot.update(fileSystemEvent);
+                            onChange.accept(fileSystemEvent);
                         }
                     }
                 }
@@ -99,13 +140,47 @@ class FileSystemWatcher {
                     }
                 }
             }
-        });
+        }, "filewatch-thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Recovers the events of a directory that were dropped by the watch service by diffing it against the snapshot.
+     */
+    private void rescan(Path directory) {
+        if (!recursivelyWatchedDirectories.contains(directory.toAbsolutePath().normalize())) {
+            // Unchanged files are dropped later on by their content hash
+            watchFiles.stream()
+                    .filter(file -> file.getParent().equals(directory.toAbsolutePath().normalize()) && Files.exists(file))
+                    .forEach(file -> onChange.accept(new FileSystemEvent(file, EventType.MODIFIED)));
+            return;
+        }
+        try {
+            DirectorySnapshot.Rescan rescan = snapshot.rescan(directory);
+            rescan.events().forEach(onChange);
+            for (Path newDirectory : rescan.newDirectories()) {
+                watchRecursively(newDirectory, true);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to rescan directory " + directory + ": " + e.getMessage());
+        }
     }
 
+    @Override
     public void stop() throws IOException {
         logger.info("Stopping watch service");
         active.set(false);
         watchService.close();
+        Thread thread = this.thread;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     private EventType toEventType(WatchEvent<?> event) {
@@ -121,6 +196,3 @@ class FileSystemWatcher {
         }
     }
 }
-
-record FileSystemEvent(Path path, EventType eventType) {
-}
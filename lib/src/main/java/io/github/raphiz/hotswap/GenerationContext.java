@@ -0,0 +1,60 @@
+package io.github.raphiz.hotswap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * State shared between hotswap and one generation of the application. It is bound to the application's main
+ * thread and inherited by all threads the application creates, which all belong to the generation's thread group.
+ */
+record GenerationContext(HandoffRegistry handoffRegistry, ThreadGroup threadGroup, List<Lifecycle> shutdownCallbacks, CompletableFuture<Void> readiness) {
+    private static final InheritableThreadLocal<GenerationContext> current = new InheritableThreadLocal<>();
+    private static volatile boolean anyCreated = false;
+
+    static GenerationContext create(HandoffRegistry handoffRegistry, String name) {
+        anyCreated = true;
+        return new GenerationContext(handoffRegistry, new ThreadGroup(name), new CopyOnWriteArrayList<>(), new CompletableFuture<>());
+    }
+
+    static GenerationContext current() {
+        return current.get();
+    }
+
+    /**
+     * Returns whether hotswap started a generation in this JVM, i.e. whether a missing context means that the
+     * calling thread was not started by the application rather than that the application runs outside of hotswap.
+     */
+    static boolean anyCreated() {
+        return anyCreated;
+    }
+
+    void bindToCurrentThread() {
+        current.set(this);
+    }
+
+    void onShutdown(Lifecycle lifecycle) {
+        shutdownCallbacks.add(lifecycle);
+    }
+
+    void ready() {
+        readiness.complete(null);
+    }
+
+    /**
+     * Returns all threads of this generation that are still alive, except the calling thread.
+     */
+    List<Thread> liveThreads() {
+        Thread[] threads = new Thread[threadGroup.activeCount() + 16];
+        int count = threadGroup.enumerate(threads, true);
+        List<Thread> liveThreads = new ArrayList<>(count);
+        for (Thread thread : Arrays.copyOf(threads, count)) {
+            if (thread.isAlive() && thread != Thread.currentThread()) {
+                liveThreads.add(thread);
+            }
+        }
+        return liveThreads;
+    }
+}
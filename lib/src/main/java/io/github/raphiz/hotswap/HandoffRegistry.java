@@ -0,0 +1,53 @@
+package io.github.raphiz.hotswap;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps objects alive across restarts, so a new generation of the application can pick up expensive state
+ * (e.g. caches) instead of rebuilding it. Use {@link Hotswap#handoff()} to access the registry.
+ * <p>
+ * Values must be instances of classes that are loaded by the parent class loader (JDK and library classes).
+ * Instances of hot swapped classes would keep the previous generation alive and could not be used by the next one.
+ */
+public final class HandoffRegistry {
+    private final Map<String, Object> entries = new ConcurrentHashMap<>();
+
+    HandoffRegistry() {
+    }
+
+    public <T> T computeIfAbsent(String key, Supplier<T> supplier) {
+        @SuppressWarnings("unchecked")
+        T value = (T) entries.computeIfAbsent(key, it -> requireHandoffCapable(key, supplier.get()));
+        return value;
+    }
+
+    public <T> Optional<T> get(String key, Class<T> type) {
+        return Optional.ofNullable(entries.get(key)).map(type::cast);
+    }
+
+    public void put(String key, Object value) {
+        entries.put(key, requireHandoffCapable(key, value));
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static Object requireHandoffCapable(String key, Object value) {
+        if (value == null) {
+            throw new NullPointerException("Value for " + key + " must not be null");
+        }
+        if (value.getClass().getClassLoader() instanceof SubpackageClassLoader) {
+            throw new IllegalArgumentException("Value for " + key + " is an instance of " + value.getClass().getName()
+                    + ", which is hot swapped. Only instances of classes loaded by the parent class loader can be handed off.");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.raphiz.hotswap;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Logger;
+
+/**
+ * Entry point for applications that want to interact with hotswap. All methods can also be used when the
+ * application is not started by hotswap (e.g. in production), in which case they fall back to sensible defaults.
+ */
+public final class Hotswap {
+    private static final Logger logger = LoggerHelpers.logger();
+    private static final HandoffRegistry standaloneHandoffRegistry = new HandoffRegistry();
+    // Most recently registered first, run by a single shutdown hook since hooks run concurrently in no defined order
+    private static final Deque<Lifecycle> standaloneShutdownCallbacks = new ArrayDeque<>();
+    private static boolean standaloneShutdownHookRegistered = false;
+
+    private Hotswap() {
+    }
+
+    /**
+     * Returns the registry whose entries are handed over to the next generation of the application on restart.
+     */
+    public static HandoffRegistry handoff() {
+        GenerationContext context = GenerationContext.current();
+        return context != null ? context.handoffRegistry() : standaloneHandoffRegistry;
+    }
+
+    /**
+     * Registers a callback that is invoked before the current generation of the application is stopped.
+     * Callbacks are invoked in reverse registration order. Outside of hotswap, the callback is invoked on JVM shutdown.
+     */
+    public static void onShutdown(Lifecycle lifecycle) {
+        GenerationContext context = GenerationContext.current();
+        if (context != null) {
+            context.onShutdown(lifecycle);
+        } else {
+            onJvmShutdown(lifecycle);
+        }
+    }
+
+    private static synchronized void onJvmShutdown(Lifecycle lifecycle) {
+        standaloneShutdownCallbacks.push(lifecycle);
+        if (!standaloneShutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(Hotswap::runStandaloneShutdownCallbacks, "hotswap-shutdown"));
+            standaloneShutdownHookRegistered = true;
+        }
+    }
+
+    private static void runStandaloneShutdownCallbacks() {
+        while (true) {
+            Lifecycle lifecycle;
+            synchronized (Hotswap.class) {
+                lifecycle = standaloneShutdownCallbacks.poll();
+            }
+            if (lifecycle == null) {
+                return;
+            }
+            try {
+                lifecycle.stop();
+            } catch (Exception e) {
+                logger.warning("Shutdown callback failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Signals that the application has completed booting. Required if hotswap is configured to wait for this
+     * signal, otherwise it only marks the application ready earlier. Does nothing outside of hotswap.
+     * Must be called from the main thread or a thread started by it: threads of pools created outside the
+     * application (e.g. the common {@link java.util.concurrent.ForkJoinPool}) are shared between generations.
+     */
+    public static void ready() {
+        GenerationContext context = GenerationContext.current();
+        if (context != null) {
+            context.ready();
+        } else if (GenerationContext.anyCreated()) {
+            logger.warning("Hotswap.ready() was called on thread " + Thread.currentThread().getName()
+                    + ", which does not belong to a generation of the application. The signal is ignored");
+        }
+    }
+
+    public static boolean isActive() {
+        return GenerationContext.current() != null;
+    }
+}
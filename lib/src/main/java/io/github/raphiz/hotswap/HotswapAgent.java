@@ -0,0 +1,30 @@
+package io.github.raphiz.hotswap;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * Java agent that gives hotswap access to {@link Instrumentation}, so classes whose method bodies changed can be
+ * redefined in place instead of restarting the application. Enabled by starting the JVM with
+ * {@code -javaagent:<path to the hotswap jar>}.
+ */
+public final class HotswapAgent {
+    private static volatile Instrumentation instrumentation;
+
+    private HotswapAgent() {
+    }
+
+    public static void premain(String arguments, Instrumentation instrumentation) {
+        HotswapAgent.instrumentation = instrumentation;
+    }
+
+    public static void agentmain(String arguments, Instrumentation instrumentation) {
+        HotswapAgent.instrumentation = instrumentation;
+    }
+
+    /**
+     * Returns the instrumentation of the agent, or null if the JVM was not started with the agent.
+     */
+    static Instrumentation instrumentation() {
+        return instrumentation;
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.raphiz.hotswap;
+
+/**
+ * Receives notifications about restarts of a {@link HotswapSession}. Listeners are invoked on hotswap's threads
+ * and must not block.
+ */
+public interface HotswapListener {
+    /**
+     * Called before the application is restarted. The changes are empty for restarts requested via
+     * {@link HotswapSession#restart()}.
+     */
+    default void beforeRestart(PathUpdates changes) {
+    }
+
+    /**
+     * Called when a generation of the application is ready.
+     */
+    default void onReady() {
+    }
+}
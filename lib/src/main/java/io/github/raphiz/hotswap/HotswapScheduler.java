@@ -0,0 +1,75 @@
+package io.github.raphiz.hotswap;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Scheduler shared by the internals of a dev mode instance (debouncing, restarts, readiness probes, polling) and a
+ * pool for parallel work (indexing directory trees, class warm-up). All threads are daemons, so they never keep the
+ * JVM alive, and {@link #close()} terminates them deterministically.
+ */
+final class HotswapScheduler implements AutoCloseable {
+    // Restarts block a thread for a whole restart, so one thread is not enough
+    static final int DEFAULT_THREADS = 2;
+    private static final Duration TERMINATION_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Logger logger = LoggerHelpers.logger();
+    private final ScheduledThreadPoolExecutor executor;
+    private final ForkJoinPool parallelPool;
+
+    HotswapScheduler(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "hotswap-scheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled probes and timers would otherwise stay in the queue until their delay expires
+        executor.setRemoveOnCancelPolicy(true);
+        this.parallelPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            // Worker threads of the default factory are daemons already
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("hotswap-parallel-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    ScheduledExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the pool for CPU bound work that is split into many small tasks. Tasks must not block.
+     */
+    ForkJoinPool parallelPool() {
+        return parallelPool;
+    }
+
+    /**
+     * Cancels all pending tasks, interrupts running ones and waits until all threads have terminated.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        parallelPool.shutdownNow();
+        awaitTermination(executor);
+        awaitTermination(parallelPool);
+    }
+
+    private void awaitTermination(ExecutorService executorService) {
+        try {
+            if (!executorService.awaitTermination(TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warning("Scheduler threads did not terminate within " + TERMINATION_TIMEOUT.toMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
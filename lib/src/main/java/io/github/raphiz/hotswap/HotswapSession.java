@@ -0,0 +1,34 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Handle of a running dev mode, e.g. to drive it from integration tests or a custom launcher. Obtained via
+ * {@link DevMode.Configuration.Builder#start()} or {@link DevMode#startDevMode(DevMode.Configuration)}.
+ */
+public interface HotswapSession extends AutoCloseable {
+    /**
+     * Restarts the application immediately, regardless of any changes, and returns once the new generation is started.
+     */
+    void restart();
+
+    /**
+     * Waits until the current generation of the application is ready.
+     *
+     * @return false if the generation is not ready within the given timeout, failed or was stopped
+     */
+    boolean awaitReady(Duration timeout);
+
+    RestartMetricsMXBean getRestartMetrics();
+
+    void addListener(HotswapListener listener);
+
+    void removeListener(HotswapListener listener);
+
+    /**
+     * Stops watching for changes and stops the application.
+     */
+    @Override
+    void close() throws IOException;
+}
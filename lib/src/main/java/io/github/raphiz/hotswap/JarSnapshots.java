@@ -0,0 +1,112 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Snapshots of the central directories of the jars on the class path, used to translate a changed jar into the
+ * entries that changed. Entries are represented as paths below the jar, e.g. {@code app.jar/com/example/Foo.class}.
+ */
+class JarSnapshots {
+    private final Logger logger = LoggerHelpers.logger();
+    private final Set<Path> jars;
+    private final Map<Path, Map<String, EntryState>> snapshots = new ConcurrentHashMap<>();
+
+    JarSnapshots(Collection<Path> jars) {
+        this.jars = new HashSet<>();
+        for (Path jar : jars) {
+            this.jars.add(jar.toAbsolutePath().normalize());
+        }
+    }
+
+    void build() {
+        for (Path jar : jars) {
+            if (Files.isRegularFile(jar)) {
+                try {
+                    snapshots.put(jar, readCentralDirectory(jar));
+                } catch (IOException e) {
+                    logger.fine(() -> "Failed to read jar " + jar + ": " + e.getMessage());
+                }
+            }
+        }
+        logger.fine(() -> "Indexed central directories of " + snapshots.size() + " jars");
+    }
+
+    /**
+     * Replaces all updated jars by their changed entries. Jars that could not be compared with a previous
+     * snapshot are kept as they are.
+     */
+    PathUpdates expand(PathUpdates pathUpdates) {
+        PathUpdates.Builder result = PathUpdates.builder();
+        for (Path path : pathUpdates.deleted()) {
+            snapshots.remove(path);
+            result.add(path, EventType.DELETED);
+        }
+        for (Path path : pathUpdates.created()) {
+            addChanges(path, EventType.CREATED, result);
+        }
+        for (Path path : pathUpdates.modified()) {
+            addChanges(path, EventType.MODIFIED, result);
+        }
+        return result.build();
+    }
+
+    private void addChanges(Path path, EventType eventType, PathUpdates.Builder result) {
+        if (!jars.contains(path)) {
+            result.add(path, eventType);
+            return;
+        }
+
+        Map<String, EntryState> current;
+        try {
+            current = readCentralDirectory(path);
+        } catch (IOException e) {
+            logger.fine(() -> "Failed to read jar " + path + ": " + e.getMessage());
+            snapshots.remove(path);
+            result.add(path, eventType);
+            return;
+        }
+
+        Map<String, EntryState> previous = snapshots.put(path, current);
+        if (previous == null) {
+            result.add(path, eventType);
+            return;
+        }
+        current.forEach((name, state) -> {
+            EntryState previousState = previous.get(name);
+            if (previousState == null) {
+                result.add(path.resolve(name), EventType.CREATED);
+            } else if (!previousState.equals(state)) {
+                result.add(path.resolve(name), EventType.MODIFIED);
+            }
+        });
+        for (String name : previous.keySet()) {
+            if (!current.containsKey(name)) {
+                result.add(path.resolve(name), EventType.DELETED);
+            }
+        }
+    }
+
+    private static Map<String, EntryState> readCentralDirectory(Path jar) throws IOException {
+        Map<String, EntryState> entries = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.put(entry.getName(), new EntryState(entry.getCrc(), entry.getSize()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private record EntryState(long crc, long size) {
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.raphiz.hotswap;
+
+/**
+ * Callback that lets the application release resources (e.g. close server sockets) before it is stopped
+ * for a restart. Register it with {@link Hotswap#onShutdown(Lifecycle)}.
+ */
+@FunctionalInterface
+public interface Lifecycle {
+    /**
+     * Invoked before the application thread is interrupted. Must return within the shutdown timeout.
+     */
+    void stop() throws Exception;
+}
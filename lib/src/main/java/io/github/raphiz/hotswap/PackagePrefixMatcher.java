@@ -0,0 +1,66 @@
+package io.github.raphiz.hotswap;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Matches class names against a fixed set of prefixes. The prefixes are compiled into a character trie,
+ * so a lookup is allocation free and takes at most as many steps as the class name is long.
+ */
+final class PackagePrefixMatcher {
+    private final Node root = new Node();
+
+    PackagePrefixMatcher(Collection<String> prefixes) {
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.childOrCreate(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+    }
+
+    boolean matches(String name) {
+        Node node = root;
+        for (int i = 0; !node.terminal; i++) {
+            if (i == name.length()) {
+                return false;
+            }
+            node = node.child(name.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertionPoint = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertionPoint);
+            System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+            System.arraycopy(keys, insertionPoint, newKeys, insertionPoint + 1, keys.length - insertionPoint);
+            System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1, children.length - insertionPoint);
+            newKeys[insertionPoint] = key;
+            newChildren[insertionPoint] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertionPoint];
+        }
+    }
+}
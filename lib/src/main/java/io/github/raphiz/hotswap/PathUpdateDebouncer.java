@@ -2,41 +2,138 @@ package io.github.raphiz.hotswap;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.logging.Logger;
 
+/**
+ * Aggregates path updates until no new update was submitted for the given timeout.
+ * <p>
+ * Submitting is lock-free: updates are enqueued and the deadline is moved forward. A single timer
+ * task re-arms itself until the deadline has passed and then invokes the callback on the timer thread.
+ * Updates submitted while the callback runs are collected for the next invocation. The callback is never
+ * invoked concurrently, even if the executor has several threads.
+ */
 public class PathUpdateDebouncer {
-    private final Duration timeout;
+    private final Logger logger = LoggerHelpers.logger();
+    private final long timeoutNanos;
     private final Consumer<PathUpdates> callback;
     private final ScheduledExecutorService executor;
-    private ScheduledFuture<?> future;
-    private PathUpdates pathUpdates;
+    private final boolean ownsExecutor;
+    private final Queue<PathUpdate> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong deadline = new AtomicLong();
+    private final AtomicBoolean timerScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    // Only accessed while draining
+    private final PathUpdates.Builder pathUpdates = PathUpdates.builder();
 
     public PathUpdateDebouncer(Duration timeout, Consumer<PathUpdates> callback) {
-        this.timeout = timeout;
+        this(timeout, callback, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hotswap-debouncer");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    /**
+     * Creates a debouncer that schedules its timer and invokes the callback on the given executor, which is not
+     * shut down by {@link #close()}.
+     */
+    public PathUpdateDebouncer(Duration timeout, Consumer<PathUpdates> callback, ScheduledExecutorService executor) {
+        this(timeout, callback, executor, false);
+    }
+
+    private PathUpdateDebouncer(Duration timeout, Consumer<PathUpdates> callback, ScheduledExecutorService executor, boolean ownsExecutor) {
+        this.timeoutNanos = timeout == null ? -1 : timeout.toNanos();
         this.callback = callback;
-        this.executor = Executors.newSingleThreadScheduledExecutor();
-        this.future = null;
-        this.pathUpdates = new PathUpdates();
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
     }
 
-    public synchronized void submit(Path path, EventType eventType) {
-        pathUpdates = pathUpdates.withPathUpdate(path, eventType);
+    /**
+     * Creates a debouncer without timeout that only invokes the callback when {@link #flush()} is called.
+     */
+    public static PathUpdateDebouncer manual(Consumer<PathUpdates> callback) {
+        return new PathUpdateDebouncer(null, callback);
+    }
+
+    public static PathUpdateDebouncer manual(Consumer<PathUpdates> callback, ScheduledExecutorService executor) {
+        return new PathUpdateDebouncer(null, callback, executor);
+    }
+
+    public void submit(Path path, EventType eventType) {
+        queue.add(new PathUpdate(path, eventType));
+        if (timeoutNanos < 0) {
+            return;
+        }
+        deadline.set(System.nanoTime() + timeoutNanos);
+        if (timerScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::onTimer, timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Invokes the callback with all updates submitted so far without waiting for the timeout.
+     */
+    public void flush() {
+        deadline.set(System.nanoTime());
+        executor.execute(this::onTimer);
+    }
 
-        if (future != null) {
-            future.cancel(false);
+    private void onTimer() {
+        long remainingNanos = deadline.get() - System.nanoTime();
+        if (remainingNanos > 0) {
+            executor.schedule(this::onTimer, remainingNanos, TimeUnit.NANOSECONDS);
+            return;
         }
+        // Updates enqueued from here on either end up in this batch or schedule a new timer
+        timerScheduled.set(false);
 
-        future = executor.schedule(() -> {
-            synchronized (this) {
-                PathUpdates updates = pathUpdates;
-                pathUpdates = new PathUpdates();
-                future = null;
-                callback.accept(updates);
+        drainRequested.set(true);
+        // If another thread is draining, it checks for the request once it is done
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested.set(false);
+                drain();
+            } finally {
+                draining.set(false);
             }
-        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain() {
+        PathUpdate pathUpdate;
+        while ((pathUpdate = queue.poll()) != null) {
+            pathUpdates.add(pathUpdate.path(), pathUpdate.eventType());
+        }
+        if (pathUpdates.isEmpty()) {
+            return;
+        }
+
+        try {
+            callback.accept(pathUpdates.build());
+        } catch (RuntimeException e) {
+            logger.severe("Failed to process path updates: " + e);
+        }
+    }
+
+    /**
+     * Discards pending updates and shuts down the executor, unless it was provided by the caller.
+     */
+    public void close() {
+        queue.clear();
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record PathUpdate(Path path, EventType eventType) {
     }
 }
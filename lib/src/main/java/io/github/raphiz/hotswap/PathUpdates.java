@@ -14,6 +14,10 @@ public record PathUpdates(
         this(Set.of(), Set.of(), Set.of());
     }
 
+    public boolean isEmpty() {
+        return created.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+    }
+
     public PathUpdates withPathUpdate(Path path, EventType eventType) {
         switch (eventType) {
             case CREATED -> {
@@ -57,6 +61,75 @@ public record PathUpdates(
         );
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Mutable accumulator with the same merge semantics as {@link #withPathUpdate(Path, EventType)},
+     * but without copying the sets on every update.
+     */
+    public static class Builder {
+        private Set<Path> created = new HashSet<>();
+        private Set<Path> modified = new HashSet<>();
+        private Set<Path> deleted = new HashSet<>();
+
+        private Builder() {
+        }
+
+        public Builder add(Path path, EventType eventType) {
+            switch (eventType) {
+                case CREATED -> {
+                    created.add(path);
+                    modified.remove(path);
+                    deleted.remove(path);
+                }
+                case MODIFIED -> {
+                    if (!created.contains(path)) {
+                        modified.add(path);
+                        deleted.remove(path);
+                    }
+                }
+                case DELETED -> {
+                    created.remove(path);
+                    modified.remove(path);
+                    deleted.add(path);
+                }
+                default -> throw new IllegalStateException("Unexpected value: " + eventType);
+            }
+            return this;
+        }
+
+        /**
+         * Merges updates that happened after the ones accumulated so far.
+         */
+        public Builder addAll(PathUpdates pathUpdates) {
+            pathUpdates.deleted().forEach(path -> add(path, EventType.DELETED));
+            pathUpdates.created().forEach(path -> add(path, EventType.CREATED));
+            pathUpdates.modified().forEach(path -> add(path, EventType.MODIFIED));
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return created.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+        }
+
+        /**
+         * Hands the accumulated updates over to an immutable {@link PathUpdates} and resets this builder.
+         */
+        public PathUpdates build() {
+            PathUpdates pathUpdates = new PathUpdates(
+                    Collections.unmodifiableSet(created),
+                    Collections.unmodifiableSet(modified),
+                    Collections.unmodifiableSet(deleted)
+            );
+            created = new HashSet<>();
+            modified = new HashSet<>();
+            deleted = new HashSet<>();
+            return pathUpdates;
+        }
+    }
+
     private static Set<Path> plusElement(Set<Path> set, Path element) {
         Set<Path> newSet = new HashSet<>(set);
         newSet.add(element);
@@ -0,0 +1,214 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link Watcher} for file systems that do not deliver native events, e.g. bind mounts into containers. Keeps a
+ * {@link DirectorySnapshot} of the watched directories and rescans a bounded number of directories per tick, so
+ * large trees are covered over several ticks instead of stalling on a single one. Changes of individually watched
+ * files are detected when a round over all directories starts and reported when it is complete, so a file written
+ * after the class files (e.g. a build completion marker) is never reported before the changes that preceded it.
+ */
+class PollingFileSystemWatcher implements Watcher {
+    static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(300);
+    static final int DEFAULT_DIRECTORIES_PER_TICK = 1000;
+
+    private final Logger logger = LoggerHelpers.logger();
+    private final Set<Path> watchDirectories;
+    private final Set<Path> watchFiles;
+    private final Consumer<FileSystemEvent> onChange;
+    private final Duration pollInterval;
+    private final int directoriesPerTick;
+    private final DirectorySnapshot snapshot = new DirectorySnapshot();
+    // All known directories, and the ones not yet scanned in the current round
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final Deque<Path> pendingDirectories = new ArrayDeque<>();
+    // Shared with the dev mode, or owned by this watcher if it was created without one
+    private final HotswapScheduler scheduler;
+    private final boolean ownsScheduler;
+    private ScheduledFuture<?> polling;
+    // Changes of the watched files detected at the start of the current round
+    private final List<FileSystemEvent> pendingFileEvents = new ArrayList<>();
+
+    PollingFileSystemWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange, Duration pollInterval, int directoriesPerTick) {
+        this(watchDirectories, watchFiles, onChange, pollInterval, directoriesPerTick, null);
+    }
+
+    /**
+     * @param scheduler runs the ticks and indexes new directory trees, or null to create an own scheduler
+     */
+    PollingFileSystemWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange, Duration pollInterval, int directoriesPerTick, HotswapScheduler scheduler) {
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler : new HotswapScheduler(1);
+        this.watchDirectories = watchDirectories.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.watchFiles = watchFiles.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.onChange = onChange;
+        this.pollInterval = pollInterval;
+        this.directoriesPerTick = directoriesPerTick;
+    }
+
+    @Override
+    public void start() {
+        logger.info("Starting polling watch service");
+        for (Path watchDirectory : watchDirectories) {
+            logger.fine("Watching directory " + watchDirectory);
+            index(watchDirectory, false);
+        }
+        for (Path watchFile : watchFiles) {
+            logger.fine("Watching file " + watchFile);
+            snapshot.refresh(watchFile);
+        }
+        polling = scheduler.executor().scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        logger.info("Stopping polling watch service");
+        if (polling != null) {
+            polling.cancel(false);
+        }
+        if (ownsScheduler) {
+            scheduler.close();
+        }
+    }
+
+    private void poll() {
+        try {
+            if (pendingDirectories.isEmpty()) {
+                for (Path watchFile : watchFiles) {
+                    snapshot.refresh(watchFile).ifPresent(eventType -> pendingFileEvents.add(new FileSystemEvent(watchFile, eventType)));
+                }
+                pendingDirectories.addAll(watchDirectories);
+                directories.stream().filter(it -> !watchDirectories.contains(it)).forEach(pendingDirectories::add);
+            }
+            for (int i = 0; i < directoriesPerTick && !pendingDirectories.isEmpty(); i++) {
+                scan(pendingDirectories.poll());
+            }
+            if (pendingDirectories.isEmpty()) {
+                pendingFileEvents.forEach(this::notify);
+                pendingFileEvents.clear();
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel all further ticks
+            logger.warning("Failed to poll for changes: " + e);
+        }
+    }
+
+    private void scan(Path directory) {
+        if (!directories.contains(directory) && !watchDirectories.contains(directory)) {
+            // Deleted since the round started
+            return;
+        }
+        DirectorySnapshot.Rescan rescan;
+        try {
+            rescan = snapshot.rescan(directory);
+        } catch (NoSuchFileException e) {
+            // Reported as deleted by the scan of its parent
+            return;
+        } catch (IOException e) {
+            logger.warning("Failed to scan directory " + directory + ": " + e.getMessage());
+            return;
+        }
+        rescan.events().forEach(this::notify);
+        for (Path newDirectory : rescan.newDirectories()) {
+            index(newDirectory, true).forEach(this::notify);
+        }
+    }
+
+    /**
+     * Records the given directory tree, walking subdirectories in parallel.
+     *
+     * @return the files found, as created events
+     */
+    private Collection<FileSystemEvent> index(Path directory, boolean notify) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        Queue<FileSystemEvent> events = new ConcurrentLinkedQueue<>();
+        try {
+            scheduler.parallelPool().invoke(new IndexTask(directory, notify, events));
+        } catch (UncheckedIOException e) {
+            logger.warning("Failed to index directory " + directory + ": " + e.getCause().getMessage());
+        }
+        return events;
+    }
+
+    private void notify(FileSystemEvent event) {
+        logger.fine(() -> "Received event " + event.eventType() + " for file " + event.path());
+        if (event.eventType() == EventType.DELETED) {
+            directories.removeIf(it -> it.startsWith(event.path()));
+        }
+        onChange.accept(event);
+    }
+
+    /**
+     * Creates polling watchers that share the scheduler of the dev mode if one is provided.
+     */
+    record Factory(Duration pollInterval) implements WatcherFactory {
+        @Override
+        public Watcher create(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) {
+            return create(watchDirectories, watchFiles, onChange, null);
+        }
+
+        Watcher create(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange, HotswapScheduler scheduler) {
+            return new PollingFileSystemWatcher(watchDirectories, watchFiles, onChange, pollInterval, DEFAULT_DIRECTORIES_PER_TICK, scheduler);
+        }
+    }
+
+    private class IndexTask extends RecursiveAction {
+        private final Path directory;
+        private final boolean notify;
+        private final Queue<FileSystemEvent> events;
+
+        IndexTask(Path directory, boolean notify, Queue<FileSystemEvent> events) {
+            this.directory = directory;
+            this.notify = notify;
+            this.events = events;
+        }
+
+        @Override
+        protected void compute() {
+            List<IndexTask> subdirectories = new ArrayList<>();
+            try {
+                if (Files.isHidden(directory)) {
+                    return;
+                }
+                snapshot.put(directory, Files.readAttributes(directory, BasicFileAttributes.class));
+                directories.add(directory);
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (NoSuchFileException e) {
+                            continue;
+                        }
+                        if (attributes.isDirectory()) {
+                            subdirectories.add(new IndexTask(entry, notify, events));
+                        } else {
+                            snapshot.put(entry, attributes);
+                            if (notify) {
+                                events.add(new FileSystemEvent(entry, EventType.CREATED));
+                            }
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // Deleted while walking, reported by the next scan of its parent
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
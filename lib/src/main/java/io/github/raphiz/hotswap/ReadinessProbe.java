@@ -0,0 +1,38 @@
+package io.github.raphiz.hotswap;
+
+/**
+ * Determines when a generation of the application is ready, i.e. has completed booting.
+ */
+public sealed interface ReadinessProbe {
+    /**
+     * Ready as soon as the main method is invoked.
+     */
+    record MainInvoked() implements ReadinessProbe {
+    }
+
+    /**
+     * Ready once the application calls {@link Hotswap#ready()}.
+     */
+    record Signal() implements ReadinessProbe {
+    }
+
+    /**
+     * Ready once the given port accepts connections on the loopback interface.
+     */
+    record PortListening(int port) implements ReadinessProbe {
+    }
+
+    /**
+     * Parses {@code main}, {@code signal} or {@code port:<port>}.
+     */
+    static ReadinessProbe parse(String value) {
+        if (value.equals("main")) {
+            return new MainInvoked();
+        } else if (value.equals("signal")) {
+            return new Signal();
+        } else if (value.startsWith("port:")) {
+            return new PortListening(Integer.parseInt(value.substring("port:".length())));
+        }
+        throw new IllegalArgumentException("Unknown readiness probe '" + value + "', expected main, signal or port:<port>");
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.raphiz.hotswap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Decides how the application reacts to a changed file. Files in the watched jars always restart the application.
+ * Files in the class path directories are matched by their resource name (e.g. {@code com/example/Foo.class})
+ * against the include, exclude and resource-only globs. Each group of globs is compiled into a single regular
+ * expression once, so an event costs one hash lookup per parent directory and at most three matches.
+ */
+final class RestartFilter {
+    enum Decision {
+        /** Restart (or redefine) the application */
+        RESTART,
+        /** The class loader serves the changed resource from disk already, no restart needed */
+        RELOAD,
+        IGNORE
+    }
+
+    private final Set<Path> directories;
+    private final Set<Path> jars;
+    // Null if all files are included
+    private final Pattern includes;
+    // Null if no files are excluded or resource-only
+    private final Pattern excludes;
+    private final Pattern resourceOnly;
+
+    RestartFilter(Collection<Path> directories, Collection<Path> jars, Collection<String> includes, Collection<String> excludes, Collection<String> resourceOnly) {
+        this.directories = directories.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.jars = jars.stream().map(it -> it.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.resourceOnly = compile(resourceOnly);
+    }
+
+    Decision decide(Path path) {
+        path = path.toAbsolutePath().normalize();
+        if (jars.contains(path)) {
+            return Decision.RESTART;
+        }
+        Path directory = path.getParent();
+        while (directory != null && !directories.contains(directory)) {
+            directory = directory.getParent();
+        }
+        // Directories themselves are irrelevant, the watcher reports the files in them as well
+        if (directory == null || Files.isDirectory(path)) {
+            return Decision.IGNORE;
+        }
+        String name = resourceName(directory, path);
+        if ((includes != null && !includes.matcher(name).matches()) || (excludes != null && excludes.matcher(name).matches())) {
+            return Decision.IGNORE;
+        }
+        // Loaded classes are never read again, so class files always need a restart
+        if (resourceOnly != null && !name.endsWith(".class") && resourceOnly.matcher(name).matches()) {
+            return Decision.RELOAD;
+        }
+        return Decision.RESTART;
+    }
+
+    /**
+     * Compiles the globs into one regular expression matching any of them, or returns null if there are none.
+     */
+    static Pattern compile(Collection<String> globs) {
+        if (globs.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile(globs.stream().map(RestartFilter::toRegex).collect(Collectors.joining("|")));
+    }
+
+    /**
+     * Translates a glob to a regular expression. Like in Gradle, {@code *} and {@code ?} match within a directory,
+     * {@code **} matches across directories and, if followed by a slash, no directory at all.
+     * Alternatives ({@code {a,b}}) and character classes ({@code [a-z]}, {@code [!a-z]}) are supported.
+     */
+    static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder("(?:");
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '{' -> {
+                    regex.append("(?:");
+                    inGroup = true;
+                }
+                case '}' -> {
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                }
+                case ',' -> regex.append(inGroup ? "|" : ",");
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unclosed character class in glob " + glob);
+                    }
+                    String characterClass = glob.substring(i + 1, end);
+                    if (characterClass.startsWith("!")) {
+                        characterClass = "^" + characterClass.substring(1);
+                    }
+                    regex.append('[').append(characterClass.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+                    i = end;
+                }
+                default -> {
+                    if ("\\.^$|+()".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                }
+            }
+        }
+        if (inGroup) {
+            throw new IllegalArgumentException("Unclosed group in glob " + glob);
+        }
+        return regex.append(')').toString();
+    }
+
+    private static String resourceName(Path directory, Path file) {
+        String name = directory.relativize(file).toString();
+        String separator = file.getFileSystem().getSeparator();
+        return separator.equals("/") ? name : name.replace(separator, "/");
+    }
+}
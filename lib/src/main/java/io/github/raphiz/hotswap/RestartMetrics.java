@@ -0,0 +1,230 @@
+package io.github.raphiz.hotswap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+/**
+ * Records how long the phases of each restart take. A restart starts with the first file system event (or the
+ * restart call) and ends when the new generation is ready.
+ */
+class RestartMetrics implements RestartMetricsMXBean {
+    static final String OBJECT_NAME = "io.github.raphiz.hotswap:type=RestartMetrics";
+    private static final int HISTOGRAM_CAPACITY = 100;
+
+    enum Phase {
+        DEBOUNCE("debounce"),
+        STOP("stop"),
+        CLOSE("close"),
+        CLASS_LOADER("class loader"),
+        MAIN("main"),
+        READY("ready"),
+        TOTAL("total");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Logger logger = LoggerHelpers.logger();
+    private final Map<Phase, RollingHistogram> histograms = new EnumMap<>(Phase.class);
+    private final Map<Phase, Long> currentRestart = new EnumMap<>(Phase.class);
+    private final Map<Phase, Long> lastRestart = new EnumMap<>(Phase.class);
+    private long restartStartNanos = -1;
+    private long triggeredAtNanos = -1;
+    private long debounceNanos;
+    private long lastBootNanos = -1;
+    private long restartCount = 0;
+
+    RestartMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new RollingHistogram(HISTOGRAM_CAPACITY));
+        }
+    }
+
+    /**
+     * Marks the next restart as triggered by a file system event at the given time.
+     */
+    synchronized void restartTriggered(long firstEventNanos) {
+        triggeredAtNanos = firstEventNanos;
+        debounceNanos = System.nanoTime() - firstEventNanos;
+    }
+
+    /**
+     * Starts measuring a restart, beginning at the triggering event if there was one.
+     */
+    synchronized void restartStarted() {
+        currentRestart.clear();
+        if (triggeredAtNanos != -1) {
+            restartStartNanos = triggeredAtNanos;
+            currentRestart.put(Phase.DEBOUNCE, debounceNanos);
+            triggeredAtNanos = -1;
+        } else {
+            restartStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records the duration of a phase of the current restart. Ignored if no restart is in progress.
+     */
+    synchronized void record(Phase phase, long durationNanos) {
+        if (restartStartNanos != -1) {
+            currentRestart.merge(phase, durationNanos, Long::sum);
+        }
+    }
+
+    /**
+     * Records the boot time of a generation, i.e. the time from invoking main until it was ready, and completes
+     * the current restart.
+     */
+    synchronized void generationReady(long bootNanos) {
+        lastBootNanos = bootNanos;
+        if (restartStartNanos == -1) {
+            logger.info("Application ready after " + TimeUnit.NANOSECONDS.toMillis(bootNanos) + "ms");
+            return;
+        }
+        record(Phase.READY, bootNanos);
+        restartCompleted();
+    }
+
+    synchronized void restartCompleted() {
+        if (restartStartNanos == -1) {
+            return;
+        }
+        currentRestart.put(Phase.TOTAL, System.nanoTime() - restartStartNanos);
+        restartStartNanos = -1;
+        restartCount++;
+
+        lastRestart.clear();
+        lastRestart.putAll(currentRestart);
+        currentRestart.forEach((phase, durationNanos) -> histograms.get(phase).record(durationNanos));
+        logger.info(summary());
+    }
+
+    synchronized String summary() {
+        StringJoiner phases = new StringJoiner(", ", " (", ")");
+        lastRestart.forEach((phase, durationNanos) -> {
+            if (phase != Phase.TOTAL) {
+                phases.add(phase.label + " " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms");
+            }
+        });
+        return "Restarted in " + TimeUnit.NANOSECONDS.toMillis(lastRestart.getOrDefault(Phase.TOTAL, 0L)) + "ms" + phases;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, replacing previously registered metrics.
+     */
+    void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            logger.warning("Failed to register restart metrics MBean: " + e.getMessage());
+        }
+    }
+
+    void unregisterMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warning("Failed to unregister restart metrics MBean: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized long getRestartCount() {
+        return restartCount;
+    }
+
+    @Override
+    public synchronized long getLastBootMillis() {
+        return lastBootNanos == -1 ? -1 : TimeUnit.NANOSECONDS.toMillis(lastBootNanos);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getLastRestartMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        lastRestart.forEach((phase, durationNanos) -> result.put(phase.label, TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMedianMillis() {
+        return perPhase(histogram -> histogram.percentile(0.5));
+    }
+
+    @Override
+    public Map<String, Long> getP95Millis() {
+        return perPhase(histogram -> histogram.percentile(0.95));
+    }
+
+    @Override
+    public Map<String, Long> getMaxMillis() {
+        return perPhase(histogram -> histogram.percentile(1));
+    }
+
+    private synchronized Map<String, Long> perPhase(ToLongFunction<RollingHistogram> statistic) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        histograms.forEach((phase, histogram) -> {
+            if (!histogram.isEmpty()) {
+                result.put(phase.label, TimeUnit.NANOSECONDS.toMillis(statistic.applyAsLong(histogram)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Keeps the most recent samples in a ring buffer.
+     */
+    static class RollingHistogram {
+        private final long[] samples;
+        private int size = 0;
+        private int next = 0;
+
+        RollingHistogram(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void record(long sample) {
+            samples[next] = sample;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.raphiz.hotswap;
+
+import java.util.Map;
+
+/**
+ * Restart timings exposed via JMX as {@code io.github.raphiz.hotswap:type=RestartMetrics}. All maps are keyed by phase and
+ * cover the most recent restarts.
+ */
+public interface RestartMetricsMXBean {
+    long getRestartCount();
+
+    /**
+     * Returns the time from invoking main until the most recent generation was ready, or -1 if none was ready yet.
+     */
+    long getLastBootMillis();
+
+    Map<String, Long> getLastRestartMillis();
+
+    Map<String, Long> getMedianMillis();
+
+    Map<String, Long> getP95Millis();
+
+    Map<String, Long> getMaxMillis();
+}
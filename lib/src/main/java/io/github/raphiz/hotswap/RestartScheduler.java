@@ -0,0 +1,123 @@
+package io.github.raphiz.hotswap;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * Runs restarts one after another and keeps at most one restart pending. Updates that arrive while a restart is in
+ * progress are merged into the pending restart, which runs as soon as the current one returned. Newer updates also
+ * abort a restart that is still waiting for its generation to boot, as that generation is outdated already.
+ * Explicitly requested restarts are scheduled the same way.
+ */
+class RestartScheduler {
+    @FunctionalInterface
+    interface Restart {
+        /**
+         * Performs a restart for the given updates, blocking until it is done.
+         *
+         * @param requested whether the restart was requested explicitly, so the application must be restarted
+         *                  even if the updates are empty or could be applied without a restart
+         */
+        void restart(PathUpdates pathUpdates, boolean requested);
+    }
+
+    private final Logger logger = LoggerHelpers.logger();
+    private final Restart restart;
+    private final Runnable abortBoot;
+    private final Executor executor;
+    // Guarded by this
+    private final PathUpdates.Builder pending = PathUpdates.builder();
+    // Completed once the pending restart is done, null if no restart was requested explicitly
+    private CompletableFuture<Void> pendingRequest = null;
+    private boolean running = false;
+    private boolean closed = false;
+
+    /**
+     * @param abortBoot makes a restart in progress stop waiting for its generation to boot
+     */
+    RestartScheduler(Restart restart, Runnable abortBoot, Executor executor) {
+        this.restart = restart;
+        this.abortBoot = abortBoot;
+        this.executor = executor;
+    }
+
+    void submit(PathUpdates pathUpdates) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending.addAll(pathUpdates);
+            if (!running) {
+                running = true;
+                executor.execute(this::run);
+                return;
+            }
+        }
+        logger.fine(() -> "Restart in progress, merged " + pathUpdates + " into the pending restart");
+        abortBoot.run();
+    }
+
+    /**
+     * Requests a restart regardless of any updates.
+     *
+     * @return completed once the application was restarted, or the request was discarded by {@link #close()}
+     */
+    CompletableFuture<Void> requestRestart() {
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (pendingRequest == null) {
+                pendingRequest = new CompletableFuture<>();
+            }
+            done = pendingRequest;
+            if (!running) {
+                running = true;
+                executor.execute(this::run);
+                return done;
+            }
+        }
+        logger.fine("Restart in progress, the requested restart is pending");
+        abortBoot.run();
+        return done;
+    }
+
+    private void run() {
+        while (true) {
+            PathUpdates pathUpdates;
+            CompletableFuture<Void> request;
+            synchronized (this) {
+                if (closed || (pending.isEmpty() && pendingRequest == null)) {
+                    running = false;
+                    return;
+                }
+                pathUpdates = pending.build();
+                request = pendingRequest;
+                pendingRequest = null;
+            }
+            try {
+                restart.restart(pathUpdates, request != null);
+            } catch (RuntimeException e) {
+                logger.severe("Failed to restart for " + pathUpdates + ": " + e);
+            } finally {
+                if (request != null) {
+                    request.complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the pending restart. A restart in progress is not interrupted.
+     */
+    synchronized void close() {
+        closed = true;
+        pending.build();
+        if (pendingRequest != null) {
+            pendingRequest.complete(null);
+            pendingRequest = null;
+        }
+    }
+}
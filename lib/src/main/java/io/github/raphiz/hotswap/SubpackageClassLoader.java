@@ -1,27 +1,58 @@
 package io.github.raphiz.hotswap;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.Collection;
-import java.util.Set;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 public class SubpackageClassLoader extends URLClassLoader {
-    private static final Set<String> jdkPackagePrefixes = Set.of("java.", "jdk.", "com.sun.", "sun.");
-    private final Collection<String> packagePrefixes;
+    static {
+        // Allows concurrent loading of different classes, see getClassLoadingLock
+        registerAsParallelCapable();
+    }
+
+    private static final PackagePrefixMatcher jdkPackagePrefixes = new PackagePrefixMatcher(Set.of("java.", "jdk.", "com.sun.", "sun."));
+    // Hotswap itself must always be shared with the application, e.g. for the handoff registry
+    private static final PackagePrefixMatcher hotswapPackagePrefix = new PackagePrefixMatcher(Set.of(SubpackageClassLoader.class.getPackageName() + "."));
+    private final Predicate<String> classNameFilter;
+    private final Set<String> definedClassNames = ConcurrentHashMap.newKeySet();
+    // Classes and resources of the class path directories are looked up here, only jars are left to URLClassLoader
+    private final ClassPathIndex classPathIndex;
 
     public SubpackageClassLoader(URL[] urls, ClassLoader parent, Collection<String> packagePrefixes) {
-        super(urls, parent);
-        this.packagePrefixes = packagePrefixes;
+        this(urls, parent, packagePrefixFilter(packagePrefixes), null);
+    }
+
+    private SubpackageClassLoader(URL[] urls, ClassLoader parent, Predicate<String> classNameFilter, ClassPathIndex classPathIndex) {
+        super(classPathIndex != null ? classPathIndex.withoutIndexedDirectories(urls) : urls, parent);
+        this.classNameFilter = classNameFilter;
+        this.classPathIndex = classPathIndex;
+    }
+
+    /**
+     * @param classPathIndex index to look up the classes and resources of the class path directories with, or null
+     */
+    static SubpackageClassLoader withClassNameFilter(URL[] urls, ClassLoader parent, Predicate<String> classNameFilter, ClassPathIndex classPathIndex) {
+        return new SubpackageClassLoader(urls, parent, classNameFilter, classPathIndex);
     }
 
     @Override
-    protected synchronized Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+    protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
         synchronized (getClassLoadingLock(className)) {
-            if (classNameStartsWithPackagePrefix(className)) {
+            if (classNameFilter.test(className)) {
 
                 Class<?> clazz = findLoadedClass(className);
                 if (clazz == null) {
                     clazz = findClass(className);
+                    definedClassNames.add(className);
                 }
 
                 if (resolve) {
@@ -35,11 +66,95 @@ public class SubpackageClassLoader extends URLClassLoader {
         }
     }
 
-    private boolean classNameStartsWithPackagePrefix(String name) {
+    @Override
+    protected Class<?> findClass(String className) throws ClassNotFoundException {
+        if (classPathIndex != null) {
+            String resourceName = className.replace('.', '/') + ".class";
+            Optional<Path> directory = classPathIndex.directoryOf(resourceName);
+            if (directory.isPresent()) {
+                try {
+                    byte[] bytes = Files.readAllBytes(directory.get().resolve(resourceName));
+                    definePackage(className);
+                    CodeSource codeSource = new CodeSource(toUrl(directory.get()), (CodeSigner[]) null);
+                    return defineClass(className, bytes, 0, bytes.length, codeSource);
+                } catch (NoSuchFileException e) {
+                    // Deleted since it was indexed, the watcher will remove it from the index shortly
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(className, e);
+                }
+            }
+        }
+        return super.findClass(className);
+    }
+
+    @Override
+    public URL findResource(String name) {
+        if (classPathIndex != null) {
+            Optional<Path> directory = classPathIndex.directoryOf(name);
+            if (directory.isPresent()) {
+                return toUrl(directory.get().resolve(name));
+            }
+        }
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        if (classPathIndex == null) {
+            return super.findResources(name);
+        }
+        List<URL> resources = new ArrayList<>();
+        for (Path directory : classPathIndex.directoriesOf(name)) {
+            resources.add(toUrl(directory.resolve(name)));
+        }
+        resources.addAll(Collections.list(super.findResources(name)));
+        return Collections.enumeration(resources);
+    }
+
+    /**
+     * Returns the class of the given name if this class loader defined it already, without loading it otherwise.
+     */
+    Class<?> findDefinedClass(String className) {
+        Class<?> clazz = findLoadedClass(className);
+        return clazz != null && clazz.getClassLoader() == this ? clazz : null;
+    }
+
+    /**
+     * Returns the names of all classes defined by this class loader so far.
+     */
+    Set<String> getDefinedClassNames() {
+        return Set.copyOf(definedClassNames);
+    }
+
+    private void definePackage(String className) {
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot == -1) {
+            return;
+        }
+        String packageName = className.substring(0, lastDot);
+        if (getDefinedPackage(packageName) == null) {
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch (IllegalArgumentException e) {
+                // Defined concurrently by another class of the same package
+            }
+        }
+    }
+
+    private static URL toUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid class path entry " + path, e);
+        }
+    }
+
+    static Predicate<String> packagePrefixFilter(Collection<String> packagePrefixes) {
         if (packagePrefixes != null) {
-            return packagePrefixes.stream().anyMatch(name::startsWith);
+            PackagePrefixMatcher packagePrefixMatcher = new PackagePrefixMatcher(packagePrefixes);
+            return name -> packagePrefixMatcher.matches(name) && !hotswapPackagePrefix.matches(name);
         } else {
-            return jdkPackagePrefixes.stream().noneMatch(name::startsWith);
+            return name -> !jdkPackagePrefixes.matches(name) && !hotswapPackagePrefix.matches(name);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+
+/**
+ * Watches the class path for changes and reports them as {@link FileSystemEvent}s.
+ * Implementations are created by a {@link WatcherFactory}.
+ */
+public interface Watcher {
+    void start() throws IOException;
+
+    void stop() throws IOException;
+}
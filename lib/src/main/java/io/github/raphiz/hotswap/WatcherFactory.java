@@ -0,0 +1,44 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates {@link Watcher}s. Select a watcher via the {@code hotswap.watcher} property, either by the name of a
+ * built-in watcher ({@code default}, {@code blocking} or {@code polling}) or by the fully qualified name of a {@code WatcherFactory}
+ * implementation with a public no-arg constructor. The {@code polling} watcher does not rely on file system events
+ * at all and rescans the watched directories every {@code hotswap.pollInterval} milliseconds instead.
+ */
+@FunctionalInterface
+public interface WatcherFactory {
+    /**
+     * Creates a watcher that reports changes of files in the given directories (recursively) and of the given files.
+     */
+    Watcher create(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) throws IOException;
+
+    static WatcherFactory byName(String name) {
+        return switch (name) {
+            case "default" -> FileSystemWatcher::new;
+            case "blocking" -> BlockingFileSystemWatcher::new;
+            case "polling" -> polling(PollingFileSystemWatcher.DEFAULT_POLL_INTERVAL);
+            default -> {
+                try {
+                    yield (WatcherFactory) Class.forName(name).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown watcher '" + name + "', expected default, blocking, polling or the class name of a WatcherFactory", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a watcher that rescans the watched directories in the given interval, for file systems that do not
+     * deliver events (e.g. bind mounts into containers).
+     */
+    static WatcherFactory polling(Duration pollInterval) {
+        return new PollingFileSystemWatcher.Factory(pollInterval);
+    }
+}
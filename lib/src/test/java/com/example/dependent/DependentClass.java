@@ -0,0 +1,10 @@
+package com.example.dependent;
+
+import com.example.SomeClass;
+
+import java.util.List;
+
+// Dummy test class to test dependency analysis, see ClassDependencyGraphTest
+public class DependentClass {
+    private List<SomeClass> someClasses;
+}
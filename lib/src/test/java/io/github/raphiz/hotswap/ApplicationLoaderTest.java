@@ -1,17 +1,26 @@
 package io.github.raphiz.hotswap;
 
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
 import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ApplicationLoaderTest {
@@ -65,6 +74,234 @@ public class ApplicationLoaderTest {
         );
 
         greeterAppWriter.assertOutputsMessage("Hi World, Universe");
+        assertEquals(1, applicationLoader.getRestartMetrics().getRestartCount());
+    }
+
+    @Test
+    void testApplicationLoaderRestartsApplicationWithLayeredClassLoading() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                new ReadinessProbe.MainInvoked(),
+                true,
+                false
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        ClassLoader initialStableLayer = applicationLoader.getClassLoader().getParent();
+
+        // The first restart moves the changed package into the reloadable layer
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        applicationLoader.restart(modifiedMainClass());
+        greeterAppWriter.assertOutputsMessage("Hi World");
+        SubpackageClassLoader reloadableLayer = applicationLoader.getClassLoader();
+        ClassLoader stableLayer = reloadableLayer.getParent();
+        assertNotSame(initialStableLayer, stableLayer);
+
+        // Subsequent restarts keep the stable layer
+        greeterAppWriter.writeCodeWithMessage("Hey");
+        greeterAppWriter.compile();
+        applicationLoader.restart(modifiedMainClass());
+        greeterAppWriter.assertOutputsMessage("Hey World");
+        assertNotSame(reloadableLayer, applicationLoader.getClassLoader());
+        assertSame(stableLayer, applicationLoader.getClassLoader().getParent());
+    }
+
+    @Test
+    void testApplicationLoaderRestartsApplicationWithWarmUp() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                new ReadinessProbe.MainInvoked(),
+                false,
+                true
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        applicationLoader.restart();
+        greeterAppWriter.assertOutputsMessage("Hi World");
+    }
+
+    @Test
+    void testApplicationLoaderHandsOffStateToNextGeneration() throws Exception {
+        greeterAppWriter.writeAppCountingGenerationsWithHandoff();
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Generation 1");
+
+        applicationLoader.restart();
+        greeterAppWriter.assertOutputsMessage("Generation 2");
+    }
+
+    @Test
+    void testApplicationLoaderReleasesPreviousGenerations() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        applicationLoader.restart();
+        greeterAppWriter.assertOutputsMessage("Hi World");
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(10))
+                .pollInterval(Duration.ofMillis(50))
+                .until(() -> {
+                    System.gc();
+                    return applicationLoader.getLiveGenerationCount() == 1;
+                });
+    }
+
+    @Test
+    void testApplicationLoaderWaitsForReadinessSignal() throws Exception {
+        greeterAppWriter.writeAppSignallingReadinessAfter(Duration.ofMillis(500));
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                new ReadinessProbe.Signal(),
+                false,
+                false
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Booting");
+
+        assertFalse(applicationLoader.awaitReady(Duration.ofMillis(10)));
+        assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+        greeterAppWriter.assertOutputsMessage("Ready");
+
+        applicationLoader.restart();
+        assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+        assertEquals(1, applicationLoader.getRestartMetrics().getRestartCount());
+        assertTrue(applicationLoader.getRestartMetrics().getLastBootMillis() >= 500);
+    }
+
+    @Test
+    void testApplicationLoaderStopsPreviousGenerationOnceNewOneIsReady() throws Exception {
+        greeterAppWriter.writeAppSignallingReadinessAfter(Duration.ofMillis(300));
+        greeterAppWriter.compile();
+
+        applicationLoader = overlappingApplicationLoader();
+        applicationLoader.start();
+        assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+        capturingLogHandler.clear();
+
+        applicationLoader.restart();
+        assertTrue(applicationLoader.awaitReady(Duration.ofMillis(10)));
+        List<String> messages = capturingLogHandler.getRecords().stream().map(LogRecord::message).toList();
+        assertEquals("Restarting Application com.example.HelloWorldApp next to the running generation", messages.get(0));
+        assertEquals("Starting Application com.example.HelloWorldApp", messages.get(1));
+        assertEquals("Stopping Application com.example.HelloWorldApp", messages.get(2));
+        assertTrue(applicationLoader.getRestartMetrics().getLastBootMillis() >= 300);
+    }
+
+    @Test
+    void testApplicationLoaderKeepsPreviousGenerationIfNewOneFails() throws Exception {
+        greeterAppWriter.writeAppSignallingReadinessAfter(Duration.ZERO);
+        greeterAppWriter.compile();
+
+        applicationLoader = overlappingApplicationLoader();
+        applicationLoader.start();
+        assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+
+        greeterAppWriter.writeAppFailingOnStart();
+        greeterAppWriter.compile();
+        applicationLoader.restart();
+        greeterAppWriter.assertOutputsMessage("Failing");
+
+        assertTrue(applicationLoader.awaitReady(Duration.ofMillis(10)));
+        assertTrue(capturingLogHandler.getRecords().contains(
+                new LogRecord(Level.WARNING, "New generation of com.example.HelloWorldApp is not ready, the previous generation keeps running")
+        ));
+    }
+
+    @Test
+    void testApplicationLoaderAbortsBootOfOutdatedGeneration() throws Exception {
+        greeterAppWriter.writeAppSignallingReadinessAfter(Duration.ZERO);
+        greeterAppWriter.compile();
+
+        applicationLoader = overlappingApplicationLoader();
+        applicationLoader.start();
+        assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+
+        greeterAppWriter.writeAppSignallingReadinessAfter(Duration.ofSeconds(20));
+        greeterAppWriter.compile();
+        Thread restart = new Thread(applicationLoader::restart);
+        restart.start();
+        greeterAppWriter.assertOutputsMessage("Booting");
+
+        Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> {
+            applicationLoader.abortBoot();
+            return !restart.isAlive();
+        });
+        assertTrue(applicationLoader.awaitReady(Duration.ofMillis(10)));
+        assertTrue(capturingLogHandler.getRecords().contains(
+                new LogRecord(Level.FINE, "Aborted boot of the new generation of com.example.HelloWorldApp, the previous generation keeps running")
+        ));
+    }
+
+    @Test
+    void testApplicationLoaderProbesPortForReadiness() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            applicationLoader = new ApplicationLoader(
+                    PACKAGE_PREFIX + "." + CLASS_NAME,
+                    new String[]{"World"},
+                    List.of(PACKAGE_PREFIX),
+                    parentClassLoader.getURLs(),
+                    SHUTDOWN_POLLING_INTERVAL,
+                    ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                    new ReadinessProbe.PortListening(serverSocket.getLocalPort()),
+                    false,
+                    false
+            );
+            applicationLoader.start();
+
+            assertTrue(applicationLoader.awaitReady(Duration.ofSeconds(5)));
+        }
     }
 
     @Test
@@ -97,6 +334,102 @@ public class ApplicationLoaderTest {
         ));
     }
 
+    @Test
+    void testApplicationLoaderInvokesShutdownCallbacks() throws Exception {
+        greeterAppWriter.writeAppWithShutdownCallback();
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Running");
+
+        applicationLoader.stop();
+        greeterAppWriter.assertOutputsMessage("Stopped gracefully");
+    }
+
+    @Test
+    void testApplicationLoaderAbandonsAppExceedingShutdownTimeout() throws Exception {
+        greeterAppWriter.writeAppWithSlowShutdownProcedure(Duration.ofSeconds(10));
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                SHUTDOWN_POLLING_INTERVAL.multipliedBy(3),
+                new ReadinessProbe.MainInvoked(),
+                false,
+                false
+        );
+        applicationLoader.start();
+
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        long startTime = System.nanoTime();
+        applicationLoader.restart();
+        greeterAppWriter.assertOutputsMessage("Hello");
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - startTime).compareTo(Duration.ofSeconds(5)) < 0);
+        assertTrue(capturingLogHandler.getRecords().stream().anyMatch(record ->
+                record.level() == Level.WARNING && record.message().startsWith("Abandoning thread 'main' which did not stop in time")
+        ));
+    }
+
+    @Test
+    void testApplicationLoaderInterruptsAllThreadsBeforeAbandoningThem() throws Exception {
+        greeterAppWriter.writeAppWithWorkerAndSlowShutdownProcedure(Duration.ofSeconds(10));
+        greeterAppWriter.compile();
+
+        applicationLoader = new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                SHUTDOWN_POLLING_INTERVAL.multipliedBy(3),
+                new ReadinessProbe.MainInvoked(),
+                false,
+                false
+        );
+        applicationLoader.start();
+        greeterAppWriter.assertOutputsMessage("Started");
+
+        // The main thread is stuck in its shutdown procedure, the worker must be interrupted anyway
+        applicationLoader.stop();
+
+        greeterAppWriter.assertOutputsMessage("Worker interrupted");
+    }
+
+    private ApplicationLoader overlappingApplicationLoader() {
+        return new ApplicationLoader(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{},
+                List.of(PACKAGE_PREFIX),
+                parentClassLoader.getURLs(),
+                SHUTDOWN_POLLING_INTERVAL,
+                ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                new ReadinessProbe.Signal(),
+                false,
+                false,
+                true,
+                null
+        );
+    }
+
+    private PathUpdates modifiedMainClass() {
+        Path classFile = greeterAppWriter.getBuildDirectory().resolve(PACKAGE_PREFIX.replace(".", "/")).resolve(CLASS_NAME + ".class");
+        return new PathUpdates(Set.of(), Set.of(classFile), Set.of());
+    }
+
     @AfterEach
     void tearDown() throws Exception {
         if (applicationLoader != null) {
@@ -0,0 +1,17 @@
+package io.github.raphiz.hotswap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Runs all watcher tests against the blocking watcher.
+ */
+public class BlockingFileSystemWatcherTest extends FileSystemFileSystemWatcherTest {
+
+    @Override
+    protected Watcher createWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) throws IOException {
+        return new BlockingFileSystemWatcher(watchDirectories, watchFiles, onChange);
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassDependencyGraphTest {
+
+    // Points at build/classes/java/test (where SomeClass, OtherClass and DependentClass are compiled)
+    private final Path classesDirectory = classesDirectory();
+    private final ClassDependencyGraph dependencyGraph = new ClassDependencyGraph(List.of(classesDirectory));
+
+    @BeforeEach
+    void scan() {
+        dependencyGraph.scan();
+    }
+
+    @Test
+    void dependentPackagesContainPackagesReferencingTheChangedPackage() {
+        Set<String> dependentPackages = dependencyGraph.dependentPackages(Set.of("com.example"));
+
+        assertTrue(dependentPackages.contains("com.example"));
+        assertTrue(dependentPackages.contains("com.example.dependent"));
+        assertFalse(dependentPackages.contains("com.otherpackage"));
+    }
+
+    @Test
+    void dependentPackagesDoNotContainReferencedPackages() {
+        Set<String> dependentPackages = dependencyGraph.dependentPackages(Set.of("com.example.dependent"));
+
+        assertEquals(Set.of("com.example.dependent"), dependentPackages);
+    }
+
+    @Test
+    void updateReturnsPackagesOfChangedClassFiles() {
+        PathUpdates pathUpdates = new PathUpdates(
+                Set.of(),
+                Set.of(classesDirectory.resolve("com/example/SomeClass.class")),
+                Set.of(classesDirectory.resolve("com/otherpackage/Removed.class"))
+        );
+
+        Optional<Set<String>> changedPackages = dependencyGraph.update(pathUpdates);
+
+        assertEquals(Optional.of(Set.of("com.example", "com.otherpackage")), changedPackages);
+    }
+
+    @Test
+    void updateReturnsEmptyOptionalIfNonClassFilesChanged() {
+        PathUpdates pathUpdates = new PathUpdates(
+                Set.of(),
+                Set.of(classesDirectory.resolve("com/example/SomeClass.class"), classesDirectory.resolve("application.properties")),
+                Set.of()
+        );
+
+        assertEquals(Optional.empty(), dependencyGraph.update(pathUpdates));
+    }
+
+    private Path classesDirectory() {
+        try {
+            return Path.of(getClass().getClassLoader().getResource("").toURI());
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
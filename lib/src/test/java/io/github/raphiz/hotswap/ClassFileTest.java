@@ -0,0 +1,56 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassFileTest {
+
+    @Test
+    void parsesClassName() throws IOException {
+        ClassFile classFile = ClassFile.parse(bytesOf("com/example/SomeClass.class"));
+
+        assertEquals("com.example.SomeClass", classFile.className());
+    }
+
+    @Test
+    void collectsReferencedClassesIncludingGenericSignatures() throws IOException {
+        ClassFile classFile = ClassFile.parse(bytesOf("com/example/dependent/DependentClass.class"));
+
+        assertTrue(classFile.referencedClassNames().contains("java.lang.Object"));
+        assertTrue(classFile.referencedClassNames().contains("java.util.List"));
+        assertTrue(classFile.referencedClassNames().contains("com.example.SomeClass"));
+        assertFalse(classFile.referencedClassNames().contains("com.example.dependent.DependentClass"));
+    }
+
+    @Test
+    void describesStructureWithoutMethodBodies() throws IOException {
+        ClassFile classFile = ClassFile.parse(bytesOf("com/example/SomeClass.class"));
+
+        assertEquals("java.lang.Object", classFile.structure().superClassName());
+        assertEquals(List.of(), classFile.structure().interfaceNames());
+        assertTrue(classFile.structure().methods().stream().anyMatch(method -> method.contains("<init> ()V")));
+    }
+
+    @Test
+    void failsForNonClassFiles() {
+        assertThrows(IOException.class, () -> ClassFile.parse(new byte[]{1, 2, 3, 4}));
+    }
+
+    @Test
+    void determinesPackageName() {
+        assertEquals("com.example", ClassFile.packageName("com.example.SomeClass"));
+        assertEquals("", ClassFile.packageName("SomeClass"));
+    }
+
+    private byte[] bytesOf(String resource) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+            assertNotNull(inputStream);
+            return inputStream.readAllBytes();
+        }
+    }
+}
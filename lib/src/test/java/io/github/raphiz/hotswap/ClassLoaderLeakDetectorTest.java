@@ -0,0 +1,119 @@
+package io.github.raphiz.hotswap;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassLoaderLeakDetectorTest {
+    private final URL[] classLoaderUrls = new URL[]{getClass().getClassLoader().getResource("")};
+    private final CapturingLogHandler capturingLogHandler = new CapturingLogHandler();
+    private final ClassLoaderLeakDetector leakDetector = new ClassLoaderLeakDetector(2);
+    private final CountDownLatch releaseThread = new CountDownLatch(1);
+    // Keeps allocations alive for a while so the heap fills up, about half of it at most
+    private final byte[][] garbage = new byte[(int) (Runtime.getRuntime().maxMemory() / 2 / (8 * 1024 * 1024))][];
+    private int garbageIndex = 0;
+
+    @BeforeEach
+    void prepareLogger() {
+        Logger logger = Logger.getLogger(ClassLoaderLeakDetector.class.getName());
+        logger.setLevel(Level.ALL);
+        logger.addHandler(capturingLogHandler);
+    }
+
+    @Test
+    void forgetsCollectedGenerations() {
+        retireNewClassLoader(1);
+        assertEquals(1, leakDetector.retainedGenerationCount());
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(10))
+                .pollInterval(Duration.ofMillis(50))
+                .until(() -> {
+                    System.gc();
+                    return leakDetector.retainedGenerationCount() == 0;
+                });
+    }
+
+    @Test
+    void reportsGenerationsThatAreNotCollected() throws Exception {
+        SubpackageClassLoader classLoader = newClassLoader();
+        Thread thread = new Thread(() -> {
+            try {
+                releaseThread.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "leaking-thread");
+        thread.setContextClassLoader(classLoader);
+        thread.start();
+        leakDetector.retire(1, classLoader, null);
+
+        System.gc();
+        leakDetector.check();
+        assertEquals(List.of(), capturingLogHandler.getRecords());
+
+        System.gc();
+        leakDetector.check();
+        assertEquals(1, leakDetector.retainedGenerationCount());
+        assertEquals(1, capturingLogHandler.getRecords().size());
+        LogRecord record = capturingLogHandler.getRecords().get(0);
+        assertEquals(Level.WARNING, record.level());
+        assertTrue(record.message().startsWith("Class loader of generation 1 was not garbage collected 2 restarts after it was stopped"));
+        assertTrue(record.message().contains("Thread 'leaking-thread' uses it as context class loader"));
+
+        // Every generation is only reported once
+        System.gc();
+        leakDetector.check();
+        assertEquals(1, capturingLogHandler.getRecords().size());
+    }
+
+    @Test
+    void reportsGenerationsOnceClassesWereUnloadedWithoutFullGarbageCollection() {
+        SubpackageClassLoader classLoader = newClassLoader();
+        leakDetector.retire(1, classLoader, null);
+        leakDetector.check();
+        leakDetector.check();
+        assertEquals(List.of(), capturingLogHandler.getRecords());
+
+        // G1 unloads classes in concurrent cycles, which start once the heap fills up
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(10))
+                .until(() -> {
+                    for (int i = 0; i < 16; i++) {
+                        garbage[garbageIndex++ % garbage.length] = new byte[8 * 1024 * 1024];
+                    }
+                    leakDetector.check();
+                    return !capturingLogHandler.getRecords().isEmpty();
+                });
+        assertTrue(capturingLogHandler.getRecords().get(0).message().startsWith("Class loader of generation 1 was not garbage collected"));
+        assertEquals(1, leakDetector.retainedGenerationCount());
+        assertNotNull(classLoader);
+    }
+
+    private void retireNewClassLoader(int generation) {
+        leakDetector.retire(generation, newClassLoader(), null);
+    }
+
+    private SubpackageClassLoader newClassLoader() {
+        return new SubpackageClassLoader(classLoaderUrls, getClass().getClassLoader(), List.of("com.example"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseThread.countDown();
+        Logger.getLogger(ClassLoaderLeakDetector.class.getName()).removeHandler(capturingLogHandler);
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClassPathIndexTest {
+
+    @Test
+    void findsResourcesInClassPathOrder() throws IOException {
+        Path first = Files.createTempDirectory(null);
+        Path second = Files.createTempDirectory(null);
+        writeFile(second.resolve("com/example/Foo.class"));
+        writeFile(first.resolve("com/example/Foo.class"));
+        ClassPathIndex classPathIndex = indexOf(first, second);
+
+        assertEquals(Optional.of(first), classPathIndex.directoryOf("com/example/Foo.class"));
+        assertEquals(2, classPathIndex.directoriesOf("com/example/Foo.class").size());
+        assertEquals(Optional.empty(), classPathIndex.directoryOf("com/example/Bar.class"));
+    }
+
+    @Test
+    void findsPackageDirectoriesWithAndWithoutTrailingSlash() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        writeFile(directory.resolve("com/example/Foo.class"));
+        ClassPathIndex classPathIndex = indexOf(directory);
+
+        assertEquals(1, classPathIndex.directoriesOf("com/example/").size());
+        assertEquals(1, classPathIndex.directoriesOf("com/example").size());
+    }
+
+    @Test
+    void updatesCreatedAndDeletedFiles() throws IOException {
+        Path first = Files.createTempDirectory(null);
+        Path second = Files.createTempDirectory(null);
+        ClassPathIndex classPathIndex = indexOf(first, second);
+
+        Path created = writeFile(second.resolve("com/example/Foo.class"));
+        classPathIndex.update(new FileSystemEvent(created, EventType.CREATED));
+        Path shadowing = writeFile(first.resolve("com/example/Foo.class"));
+        classPathIndex.update(new FileSystemEvent(shadowing, EventType.CREATED));
+        assertEquals(Optional.of(first), classPathIndex.directoryOf("com/example/Foo.class"));
+
+        Files.delete(shadowing);
+        classPathIndex.update(new FileSystemEvent(shadowing, EventType.DELETED));
+        assertEquals(Optional.of(second), classPathIndex.directoryOf("com/example/Foo.class"));
+    }
+
+    @Test
+    void indexesPackageDirectoriesOfCreatedFiles() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        ClassPathIndex classPathIndex = indexOf(directory);
+
+        // Watchers only report the files in created directories
+        Path created = writeFile(directory.resolve("com/example/newpkg/Foo.class"));
+        classPathIndex.update(new FileSystemEvent(created, EventType.CREATED));
+
+        assertEquals(List.of(directory), classPathIndex.directoriesOf("com/example/newpkg/"));
+        assertEquals(List.of(directory), classPathIndex.directoriesOf("com/example/"));
+        assertEquals(List.of(directory), classPathIndex.directoriesOf("com/"));
+    }
+
+    @Test
+    void resolvesEmptyNameToClassPathDirectories() throws IOException {
+        Path first = Files.createTempDirectory(null);
+        Path second = Files.createTempDirectory(null);
+        ClassPathIndex classPathIndex = indexOf(first, second);
+
+        assertEquals(Optional.of(first), classPathIndex.directoryOf(""));
+        assertEquals(List.of(first, second), classPathIndex.directoriesOf(""));
+    }
+
+    @Test
+    void dropsEverythingBelowDeletedDirectories() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        writeFile(directory.resolve("com/example/Foo.class"));
+        writeFile(directory.resolve("com/example/nested/Bar.class"));
+        writeFile(directory.resolve("com/other/Baz.class"));
+        ClassPathIndex classPathIndex = indexOf(directory);
+
+        deleteRecursively(directory.resolve("com/example"));
+        classPathIndex.update(new FileSystemEvent(directory.resolve("com/example"), EventType.DELETED));
+
+        assertEquals(List.of(), classPathIndex.directoriesOf("com/example/Foo.class"));
+        assertEquals(List.of(), classPathIndex.directoriesOf("com/example/nested/Bar.class"));
+        assertEquals(List.of(), classPathIndex.directoriesOf("com/example/"));
+        assertEquals(1, classPathIndex.directoriesOf("com/other/Baz.class").size());
+    }
+
+    @Test
+    void removesIndexedDirectoriesFromClassPath() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        URL directoryUrl = directory.toUri().toURL();
+        URL jarUrl = directory.resolveSibling("library.jar").toUri().toURL();
+        ClassPathIndex classPathIndex = new ClassPathIndex(ClassPathIndex.directories(new URL[]{directoryUrl, jarUrl}));
+
+        assertEquals(List.of(jarUrl), List.of(classPathIndex.withoutIndexedDirectories(new URL[]{directoryUrl, jarUrl})));
+    }
+
+    @Test
+    void indexesOnlyDirectoriesBeforeTheFirstJar() throws IOException {
+        URL first = Files.createTempDirectory(null).toUri().toURL();
+        URL jar = Files.createTempDirectory(null).resolve("library.jar").toUri().toURL();
+        URL second = Files.createTempDirectory(null).toUri().toURL();
+        URL[] classPath = {first, jar, second};
+
+        ClassPathIndex classPathIndex = new ClassPathIndex(ClassPathIndex.leadingDirectories(classPath));
+
+        // The remaining entries are searched after the index, as in the original class path
+        assertEquals(List.of(jar, second), List.of(classPathIndex.withoutIndexedDirectories(classPath)));
+    }
+
+    private static ClassPathIndex indexOf(Path... directories) {
+        ClassPathIndex classPathIndex = new ClassPathIndex(List.of(directories));
+        classPathIndex.build();
+        return classPathIndex;
+    }
+
+    private static Path writeFile(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "content");
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
+import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassRedefinitionTest {
+    private final GreeterAppWriter greeterAppWriter = new GreeterAppWriter();
+    private final RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+    private final ClassRedefinition classRedefinition = new ClassRedefinition(instrumentation);
+    private final SubpackageClassLoader classLoader = new SubpackageClassLoader(
+            greeterAppWriter.createFakeParentClassLoader().getURLs(),
+            getClass().getClassLoader(),
+            List.of(PACKAGE_PREFIX)
+    );
+
+    @Test
+    void redefinesClassesWhoseMethodBodiesChanged() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        loadMainClass();
+
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+
+        assertTrue(classRedefinition.redefine(classLoader, modified(mainClassFile())));
+        assertEquals(List.of(PACKAGE_PREFIX + "." + CLASS_NAME), instrumentation.redefinedClassNames);
+    }
+
+    @Test
+    void requiresRestartIfStructureChanged() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        loadMainClass();
+
+        greeterAppWriter.writeAppWithShutdownCallback();
+        greeterAppWriter.compile();
+
+        assertFalse(classRedefinition.redefine(classLoader, modified(mainClassFile())));
+        assertEquals(List.of(), instrumentation.redefinedClassNames);
+    }
+
+    @Test
+    void leavesClassesThatAreNotLoadedYetToTheClassLoader() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        assertTrue(classRedefinition.redefine(classLoader, modified(mainClassFile())));
+        assertEquals(List.of(), instrumentation.redefinedClassNames);
+    }
+
+    @Test
+    void requiresRestartForResourcesAndDeletedFiles() throws Exception {
+        Path resource = Files.writeString(greeterAppWriter.getBuildDirectory().resolve("application.properties"), "key=value");
+
+        assertFalse(classRedefinition.redefine(classLoader, modified(resource)));
+        assertFalse(classRedefinition.redefine(classLoader, new PathUpdates(Set.of(), Set.of(), Set.of(mainClassFile()))));
+    }
+
+    @Test
+    void stopsObservingClassFilesWhenClosed() {
+        classRedefinition.close();
+
+        assertEquals(List.of(), instrumentation.transformers);
+    }
+
+    private void loadMainClass() throws Exception {
+        Class<?> mainClass = classLoader.loadClass(PACKAGE_PREFIX + "." + CLASS_NAME);
+        // The JVM would notify the transformer registered by the agent
+        classRedefinition.transform(classLoader, mainClass.getName().replace('.', '/'), null, null, Files.readAllBytes(mainClassFile()));
+    }
+
+    private Path mainClassFile() {
+        return greeterAppWriter.getBuildDirectory().resolve(PACKAGE_PREFIX.replace(".", "/")).resolve(CLASS_NAME + ".class");
+    }
+
+    private static PathUpdates modified(Path path) {
+        return new PathUpdates(Set.of(), Set.of(path), Set.of());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        classLoader.close();
+        greeterAppWriter.close();
+    }
+
+    private static class RecordingInstrumentation implements Instrumentation {
+        final List<ClassFileTransformer> transformers = new ArrayList<>();
+        final List<String> redefinedClassNames = new ArrayList<>();
+
+        @Override
+        public void addTransformer(ClassFileTransformer transformer, boolean canRetransform) {
+            transformers.add(transformer);
+        }
+
+        @Override
+        public void addTransformer(ClassFileTransformer transformer) {
+            transformers.add(transformer);
+        }
+
+        @Override
+        public boolean removeTransformer(ClassFileTransformer transformer) {
+            return transformers.remove(transformer);
+        }
+
+        @Override
+        public boolean isRetransformClassesSupported() {
+            return false;
+        }
+
+        @Override
+        public void retransformClasses(Class<?>... classes) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isRedefineClassesSupported() {
+            return true;
+        }
+
+        @Override
+        public void redefineClasses(ClassDefinition... definitions) {
+            for (ClassDefinition definition : definitions) {
+                redefinedClassNames.add(definition.getDefinitionClass().getName());
+            }
+        }
+
+        @Override
+        public boolean isModifiableClass(Class<?> theClass) {
+            return true;
+        }
+
+        @Override
+        public Class<?>[] getAllLoadedClasses() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Class<?>[] getInitiatedClasses(ClassLoader loader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getObjectSize(Object objectToSize) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendToBootstrapClassLoaderSearch(JarFile jarfile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendToSystemClassLoaderSearch(JarFile jarfile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isNativeMethodPrefixSupported() {
+            return false;
+        }
+
+        @Override
+        public void setNativeMethodPrefix(ClassFileTransformer transformer, String prefix) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void redefineModule(Module module, Set<Module> extraReads, Map<String, Set<Module>> extraExports, Map<String, Set<Module>> extraOpens, Set<Class<?>> extraUses, Map<Class<?>, List<Class<?>>> extraProvides) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isModifiableModule(Module module) {
+            return false;
+        }
+    }
+}
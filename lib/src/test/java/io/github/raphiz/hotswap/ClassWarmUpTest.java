@@ -0,0 +1,56 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClassWarmUpTest {
+    // URLs pointing at build/classes/java/test (where SomeClass and OtherClass are compiled)
+    private final URL[] classLoaderUrls = new URL[]{getClass().getClassLoader().getResource("")};
+    private final SubpackageClassLoader classLoader = new SubpackageClassLoader(
+            classLoaderUrls,
+            getClass().getClassLoader(),
+            List.of("com.example", "com.otherpackage")
+    );
+    private final ClassWarmUp classWarmUp = new ClassWarmUp(2);
+
+    @Test
+    void loadsAllGivenClasses() throws Exception {
+        int loadedClasses = classWarmUp.warmUp(
+                classLoader,
+                List.of("com.example.SomeClass", "com.otherpackage.OtherClass"),
+                () -> false
+        ).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, loadedClasses);
+        assertEquals(Set.of("com.example.SomeClass", "com.otherpackage.OtherClass"), classLoader.getDefinedClassNames());
+    }
+
+    @Test
+    void ignoresClassesThatNoLongerExist() throws Exception {
+        int loadedClasses = classWarmUp.warmUp(
+                classLoader,
+                List.of("com.example.SomeClass", "com.example.RemovedClass"),
+                () -> false
+        ).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, loadedClasses);
+    }
+
+    @Test
+    void skipsLoadingWhenCancelled() throws Exception {
+        int loadedClasses = classWarmUp.warmUp(
+                classLoader,
+                List.of("com.example.SomeClass"),
+                () -> true
+        ).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, loadedClasses);
+        assertEquals(Set.of(), classLoader.getDefinedClassNames());
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContentHashIndexTest {
+
+    @Test
+    void filtersModifiedFilesWithIdenticalContent() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path file = Files.writeString(directory.resolve("Unchanged.class"), "content");
+        ContentHashIndex contentHashIndex = indexOf(directory);
+
+        Files.writeString(file, "content");
+
+        assertEquals(new PathUpdates(), contentHashIndex.filter(modified(file)));
+    }
+
+    @Test
+    void keepsModifiedFilesWithChangedContent() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path file = Files.writeString(directory.resolve("Changed.class"), "content");
+        ContentHashIndex contentHashIndex = indexOf(directory);
+
+        Files.writeString(file, "changed content");
+
+        assertEquals(modified(file), contentHashIndex.filter(modified(file)));
+    }
+
+    @Test
+    void keepsLargeFilesWithChangedContent() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path file = Files.write(directory.resolve("Large.class"), new byte[256 * 1024]);
+        ContentHashIndex contentHashIndex = indexOf(directory);
+
+        byte[] changedContent = new byte[256 * 1024];
+        changedContent[128 * 1024] = 1;
+        Files.write(file, changedContent);
+
+        assertEquals(modified(file), contentHashIndex.filter(modified(file)));
+        assertEquals(new PathUpdates(), contentHashIndex.filter(modified(file)));
+    }
+
+    @Test
+    void keepsCreatedFilesUnlessRecreatedWithIdenticalContent() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path existingFile = Files.writeString(directory.resolve("Existing.class"), "content");
+        ContentHashIndex contentHashIndex = indexOf(directory);
+        Path newFile = Files.writeString(directory.resolve("New.class"), "content");
+
+        PathUpdates pathUpdates = new PathUpdates(Set.of(existingFile, newFile), Set.of(), Set.of());
+
+        assertEquals(new PathUpdates(Set.of(newFile), Set.of(), Set.of()), contentHashIndex.filter(pathUpdates));
+    }
+
+    @Test
+    void keepsDeletedFilesAndForgetsTheirContent() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path file = Files.writeString(directory.resolve("Deleted.class"), "content");
+        ContentHashIndex contentHashIndex = indexOf(directory);
+
+        PathUpdates deleted = new PathUpdates(Set.of(), Set.of(), Set.of(file));
+        assertEquals(deleted, contentHashIndex.filter(deleted));
+
+        assertEquals(modified(file), contentHashIndex.filter(modified(file)));
+    }
+
+    @Test
+    void matchesFilesOfRootsThatAreNotNormalized() throws IOException {
+        Path directory = Files.createTempDirectory(null);
+        Path file = Files.writeString(directory.resolve("Unchanged.class"), "content");
+        ContentHashIndex contentHashIndex = indexOf(directory.resolve("..").resolve(directory.getFileName()).resolve("."));
+
+        Files.writeString(file, "content");
+
+        assertEquals(new PathUpdates(), contentHashIndex.filter(modified(file)));
+    }
+
+    private static ContentHashIndex indexOf(Path directory) {
+        ContentHashIndex contentHashIndex = new ContentHashIndex(List.of(directory));
+        contentHashIndex.build();
+        return contentHashIndex;
+    }
+
+    private static PathUpdates modified(Path file) {
+        return new PathUpdates(Set.of(), Set.of(file), Set.of());
+    }
+}
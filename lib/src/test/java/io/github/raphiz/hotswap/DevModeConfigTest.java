@@ -102,6 +102,97 @@ class DevModeConfigTest {
         assertEquals(configuration.shutdownPollingInterval, Duration.ofSeconds(5));
     }
 
+    @Test
+    void setsShutdownTimeout() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.shutdownTimeout", Duration.ofSeconds(12).toMillis() + "");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertEquals(configuration.shutdownTimeout, Duration.ofSeconds(12));
+    }
+
+    @Test
+    void setsDefaultShutdownTimeoutIfNotProvided() {
+        DevMode.Configuration configuration = parse(validConfigurationProperties(), validArgs());
+
+        assertEquals(configuration.shutdownTimeout, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void setsReadinessProbe() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.readinessProbe", "port:8080");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertEquals(configuration.readinessProbe, new ReadinessProbe.PortListening(8080));
+    }
+
+    @Test
+    void setsDefaultReadinessProbeIfNotProvided() {
+        DevMode.Configuration configuration = parse(validConfigurationProperties(), validArgs());
+
+        assertEquals(configuration.readinessProbe, new ReadinessProbe.MainInvoked());
+    }
+
+    @Test
+    void setsWatcher() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.watcher", "blocking");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertNotNull(configuration.watcherFactory);
+    }
+
+    @Test
+    void setsPollingWatcherWithPollInterval() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.watcher", "polling");
+        properties.put("hotswap.pollInterval", "1000");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertNotNull(configuration.watcherFactory);
+    }
+
+    @Test
+    void watcherFailsForUnknownName() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.watcher", "com.example.DoesNotExist");
+
+        assertThrows(IllegalArgumentException.class, () -> parse(properties, validArgs()));
+    }
+
+    @Test
+    void builderUsesSameDefaultsAsProperties() {
+        DevMode.Configuration parsed = parse(Map.of("hotswap.mainClass", "com.example.Foo"), new String[0]);
+
+        DevMode.Configuration built = DevMode.Configuration.builder("com.example.Foo").build();
+
+        assertEquals(parsed.classPath, built.classPath);
+        assertEquals(parsed.packagePrefixes, built.packagePrefixes);
+        assertEquals(parsed.shutdownPollingInterval, built.shutdownPollingInterval);
+        assertEquals(parsed.shutdownTimeout, built.shutdownTimeout);
+        assertEquals(parsed.readinessProbe, built.readinessProbe);
+        assertEquals(parsed.debounceDuration, built.debounceDuration);
+        assertEquals(parsed.layeredClassLoading, built.layeredClassLoading);
+        assertEquals(parsed.warmUp, built.warmUp);
+        assertEquals(parsed.overlappingRestarts, built.overlappingRestarts);
+        assertEquals(parsed.redefineClasses, built.redefineClasses);
+        assertEquals(parsed.restartIncludes, built.restartIncludes);
+        assertEquals(parsed.restartExcludes, built.restartExcludes);
+        assertEquals(parsed.resourceOnly, built.resourceOnly);
+    }
+
+    @Test
+    void builderFailsWithoutClassPath() {
+        DevMode.Configuration.Builder builder = DevMode.Configuration.builder("com.example.Foo").classPath(Set.of());
+
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
     @Test
     void setsDefaultShutdownPollingIntervalIfNotProvided() {
         Map<String, String> properties = validConfigurationProperties();
@@ -151,6 +242,99 @@ class DevModeConfigTest {
         assertEquals(configuration.debounceDuration, Duration.ofMillis(100));
     }
 
+    @Test
+    void enablesLayeredClassLoading() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.layeredClassLoading", "true");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertTrue(configuration.layeredClassLoading);
+    }
+
+    @Test
+    void disablesLayeredClassLoadingIfNotProvided() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.remove("hotswap.layeredClassLoading");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertFalse(configuration.layeredClassLoading);
+    }
+
+    @Test
+    void setsBuildCompletionMarker() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.buildCompletionMarker", "build/hotswap/build-completed");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertEquals(Path.of("build/hotswap/build-completed"), configuration.buildCompletionMarker);
+    }
+
+    @Test
+    void buildCompletionMarkerIsNullIfNotProvided() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.buildCompletionMarker", "");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertNull(configuration.buildCompletionMarker);
+    }
+
+    @Test
+    void enablesWarmUp() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.warmUp", "true");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertTrue(configuration.warmUp);
+    }
+
+    @Test
+    void enablesOverlappingRestarts() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.overlappingRestarts", "true");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertTrue(configuration.overlappingRestarts);
+    }
+
+    @Test
+    void enablesClassRedefinition() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.redefineClasses", "true");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertTrue(configuration.redefineClasses);
+    }
+
+    @Test
+    void setsRestartFilterGlobs() {
+        Map<String, String> properties = validConfigurationProperties();
+        properties.put("hotswap.restartIncludes", "com/example/**");
+        properties.put("hotswap.restartExcludes", "**.tmp, **~");
+        properties.put("hotswap.resourceOnly", "templates/**,static/**,");
+
+        DevMode.Configuration configuration = parse(properties, validArgs());
+
+        assertEquals(Set.of("com/example/**"), configuration.restartIncludes);
+        assertEquals(Set.of("**.tmp", "**~"), configuration.restartExcludes);
+        assertEquals(Set.of("templates/**", "static/**"), configuration.resourceOnly);
+    }
+
+    @Test
+    void restartsForAllFilesIfNoGlobsAreProvided() {
+        DevMode.Configuration configuration = parse(validConfigurationProperties(), validArgs());
+
+        assertEquals(Set.of(), configuration.restartIncludes);
+        assertEquals(Set.of(), configuration.restartExcludes);
+        assertEquals(Set.of(), configuration.resourceOnly);
+    }
+
     @Test
     void setsArgsWithProvidedArgs() {
         Map<String, String> properties = validConfigurationProperties();
@@ -1,21 +1,32 @@
 package io.github.raphiz.hotswap;
 
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
 import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DevModeTest {
     public static final Duration SHUTDOWN_POLLING_INTERVAL = Duration.ofMillis(100);
     private final GreeterAppWriter greeterAppWriter = new GreeterAppWriter();
     private final CapturingLogHandler capturingLogHandler = new CapturingLogHandler();
+    private HotswapSession devMode;
 
     @BeforeEach
     public void prepareLogger() {
@@ -26,6 +37,13 @@ class DevModeTest {
         });
     }
 
+    @AfterEach
+    public void closeDevMode() throws Exception {
+        if (devMode != null) {
+            devMode.close();
+        }
+    }
+
     @Test
     void testApplicationLoaderRestartsApplication() throws Exception {
         // Compile initial program version
@@ -33,7 +51,7 @@ class DevModeTest {
         greeterAppWriter.compile();
 
         // Start application
-        DevMode.startDevMode(new DevMode.Configuration(
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
                 PACKAGE_PREFIX + "." + CLASS_NAME,
                 new String[]{"World", "Universe"},
                 Set.of(PACKAGE_PREFIX),
@@ -63,6 +81,246 @@ class DevModeTest {
                 new LogRecord(Level.FINE, "Clean up previous class loader and application instance"),
                 new LogRecord(Level.INFO, "Starting Application com.example.HelloWorldApp")
         );
+
+        // Restarts run on the scheduler threads, which keep their names
+        assertEquals(List.of(), Thread.getAllStackTraces().keySet().stream().map(Thread::getName).filter("hotswap"::equals).toList());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testRestartsApplicationIfJarIsReplaced() throws Exception {
+        Path jar = Files.createTempDirectory("libs").resolve("app.jar");
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        greeterAppWriter.packageJar(jar);
+
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                Set.of(PACKAGE_PREFIX),
+                Set.of(jar),
+                SHUTDOWN_POLLING_INTERVAL,
+                Duration.ofMillis(20)
+        ));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        capturingLogHandler.clear();
+
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        greeterAppWriter.packageJar(jar);
+
+        greeterAppWriter.assertOutputsMessage("Hi World");
+        Awaitility.await().untilAsserted(() -> assertTrue(capturingLogHandler.getRecords().contains(
+                new LogRecord(Level.FINE, "Restarting due to PathUpdates[created=[], modified=[" + jar.resolve("com/example/HelloWorldApp.class") + "], deleted=[]]")
+        )));
+    }
+
+    @Test
+    void testSkipsRestartIfClassFileIsRewrittenWithIdenticalContent() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                Set.of(PACKAGE_PREFIX),
+                Set.of(greeterAppWriter.getBuildDirectory()),
+                SHUTDOWN_POLLING_INTERVAL,
+                Duration.ofMillis(20)
+        ));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        capturingLogHandler.clear();
+
+        // Touch-only recompilation
+        Path classFile = greeterAppWriter.getBuildDirectory().resolve("com/example/HelloWorldApp.class");
+        Files.write(classFile, Files.readAllBytes(classFile));
+
+        Awaitility.await().untilAsserted(() -> capturingLogHandler.assertLogRecords(
+                new LogRecord(Level.FINE, "Skipping restart, content is unchanged for PathUpdates[created=[], modified=[" + classFile + "], deleted=[]]")
+        ));
+    }
+
+    @Test
+    void testMeasuresRestartsFromTheFirstFileSystemEvent() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                Set.of(PACKAGE_PREFIX),
+                Set.of(greeterAppWriter.getBuildDirectory()),
+                SHUTDOWN_POLLING_INTERVAL,
+                Duration.ofMillis(200)
+        ));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        greeterAppWriter.assertOutputsMessage("Hi World");
+
+        Awaitility.await().untilAsserted(() -> assertTrue(devMode.getRestartMetrics().getLastRestartMillis().containsKey("total")));
+        Map<String, Long> lastRestart = devMode.getRestartMetrics().getLastRestartMillis();
+        assertTrue(lastRestart.get("debounce") >= 200, lastRestart.toString());
+        assertTrue(lastRestart.get("total") >= lastRestart.get("debounce"), lastRestart.toString());
+    }
+
+    @Test
+    void testReloadsResourceOnlyFilesWithoutRestart() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.Configuration.builder(PACKAGE_PREFIX + "." + CLASS_NAME)
+                .args("World")
+                .packagePrefixes(Set.of(PACKAGE_PREFIX))
+                .classPath(Set.of(greeterAppWriter.getBuildDirectory()))
+                .shutdownPollingInterval(SHUTDOWN_POLLING_INTERVAL)
+                .debounceDuration(Duration.ofMillis(20))
+                .restartExcludes(Set.of("**.tmp"))
+                .resourceOnly(Set.of("templates/**"))
+                .start();
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        capturingLogHandler.clear();
+
+        Files.writeString(greeterAppWriter.getBuildDirectory().resolve("greeting.tmp"), "ignored");
+        Path template = Files.createDirectories(greeterAppWriter.getBuildDirectory().resolve("templates")).resolve("greeting.html");
+        Files.writeString(template, "<p>Hello</p>");
+
+        // Writing the template may be reported as creation and modification in separate batches
+        LogRecord reloaded = new LogRecord(Level.FINE, "Reloaded resource " + template + " without restart");
+        Awaitility.await().until(() -> capturingLogHandler.getRecords().contains(reloaded));
+        assertEquals(List.of(), capturingLogHandler.getRecords().stream().filter(record -> !record.equals(reloaded)).toList());
+    }
+
+    @Test
+    void testRestartsWhenBuildCompletionMarkerIsWritten() throws Exception {
+        Path buildCompletionMarker = Files.createTempDirectory("hotswap").resolve("build-completed");
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                Set.of(PACKAGE_PREFIX),
+                Set.of(greeterAppWriter.getBuildDirectory()),
+                SHUTDOWN_POLLING_INTERVAL,
+                ApplicationLoader.DEFAULT_SHUTDOWN_TIMEOUT,
+                new ReadinessProbe.MainInvoked(),
+                Duration.ofMillis(20),
+                false,
+                buildCompletionMarker,
+                false,
+                WatcherFactory.byName("default")
+        ));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        // Without the marker, recompilation does not trigger a restart
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        Thread.sleep(500);
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        Files.writeString(buildCompletionMarker, "done");
+        greeterAppWriter.assertOutputsMessage("Hi World");
+    }
+
+    @Test
+    void testSessionCanBeDrivenProgrammatically() throws Exception {
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+        List<String> notifications = new CopyOnWriteArrayList<>();
+
+        devMode = DevMode.Configuration.builder(PACKAGE_PREFIX + "." + CLASS_NAME)
+                .args("World")
+                .packagePrefixes(Set.of(PACKAGE_PREFIX))
+                .classPath(Set.of(greeterAppWriter.getBuildDirectory()))
+                .shutdownPollingInterval(SHUTDOWN_POLLING_INTERVAL)
+                .debounceDuration(Duration.ofMillis(20))
+                .start();
+        devMode.addListener(new HotswapListener() {
+            @Override
+            public void beforeRestart(PathUpdates changes) {
+                notifications.add("restart " + changes.isEmpty());
+            }
+
+            @Override
+            public void onReady() {
+                notifications.add("ready");
+            }
+        });
+        assertTrue(devMode.awaitReady(Duration.ofSeconds(5)));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+
+        devMode.restart();
+
+        assertTrue(devMode.awaitReady(Duration.ofSeconds(5)));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        // The first generation might have been ready before the listener was added
+        Awaitility.await().untilAsserted(() -> assertEquals(
+                List.of("restart true", "ready"),
+                notifications.subList(notifications.indexOf("restart true"), notifications.size())
+        ));
+        assertTrue(devMode.getRestartMetrics().getRestartCount() >= 1);
+    }
+
+    @Test
+    void testCloseTerminatesAllThreads() throws Exception {
+        Set<Thread> threadsBefore = Thread.getAllStackTraces().keySet();
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.startDevMode(new DevMode.Configuration(
+                PACKAGE_PREFIX + "." + CLASS_NAME,
+                new String[]{"World"},
+                Set.of(PACKAGE_PREFIX),
+                Set.of(greeterAppWriter.getBuildDirectory()),
+                SHUTDOWN_POLLING_INTERVAL,
+                Duration.ofMillis(20)
+        ));
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        devMode.close();
+
+        assertNoThreadsRemain(threadsBefore);
+    }
+
+    @Test
+    void testCloseTerminatesThreadsOfPollingWatcherAndWarmUp() throws Exception {
+        Set<Thread> threadsBefore = Thread.getAllStackTraces().keySet();
+        greeterAppWriter.writeCodeWithMessage("Hello");
+        greeterAppWriter.compile();
+
+        devMode = DevMode.Configuration.builder(PACKAGE_PREFIX + "." + CLASS_NAME)
+                .args("World")
+                .packagePrefixes(Set.of(PACKAGE_PREFIX))
+                .classPath(Set.of(greeterAppWriter.getBuildDirectory()))
+                .shutdownPollingInterval(SHUTDOWN_POLLING_INTERVAL)
+                .debounceDuration(Duration.ofMillis(20))
+                .watcherFactory(WatcherFactory.polling(Duration.ofMillis(10)))
+                .warmUp(true)
+                .start();
+        greeterAppWriter.assertOutputsMessage("Hello World");
+        // Indexes the new directory and warms up the classes of the first generation
+        Files.createDirectories(greeterAppWriter.getBuildDirectory().resolve("com/example/nested"));
+        greeterAppWriter.writeCodeWithMessage("Hi");
+        greeterAppWriter.compile();
+        greeterAppWriter.assertOutputsMessage("Hi World");
+        devMode.close();
+
+        assertNoThreadsRemain(threadsBefore);
+    }
+
+    private static void assertNoThreadsRemain(Set<Thread> threadsBefore) throws InterruptedException {
+        List<Thread> newThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> !threadsBefore.contains(thread))
+                .filter(thread -> !thread.getName().startsWith("ForkJoinPool.commonPool"))
+                .toList();
+        // Threads of the JDK, like the one of the watch service, may terminate shortly after being closed
+        for (Thread thread : newThreads) {
+            thread.join(1000);
+        }
+        Set<String> remainingThreads = newThreads.stream()
+                .filter(Thread::isAlive)
+                .map(Thread::getName)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(), remainingThreads);
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DirectorySnapshotTest {
+
+    @Test
+    void rescanReportsChangesSinceTheSnapshot() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        writtenBefore(Files.writeString(directory.resolve("Unchanged.class"), "unchanged"));
+        Path modified = Files.writeString(directory.resolve("Modified.class"), "before");
+        Path deleted = Files.writeString(directory.resolve("Deleted.class"), "deleted");
+        Path deletedDirectory = Files.createDirectory(directory.resolve("deleted"));
+        Path fileInDeletedDirectory = Files.writeString(deletedDirectory.resolve("Nested.class"), "nested");
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        snapshot.add(directory);
+
+        Files.writeString(modified, "after with a different size");
+        Files.delete(deleted);
+        Files.delete(fileInDeletedDirectory);
+        Files.delete(deletedDirectory);
+        Path created = Files.writeString(directory.resolve("Created.class"), "created");
+        Path createdDirectory = Files.createDirectory(directory.resolve("created"));
+
+        DirectorySnapshot.Rescan rescan = snapshot.rescan(directory);
+
+        assertEquals(
+                Set.of(
+                        new FileSystemEvent(created, EventType.CREATED),
+                        new FileSystemEvent(modified, EventType.MODIFIED),
+                        new FileSystemEvent(deleted, EventType.DELETED),
+                        new FileSystemEvent(deletedDirectory, EventType.DELETED),
+                        new FileSystemEvent(fileInDeletedDirectory, EventType.DELETED)
+                ),
+                new HashSet<>(rescan.events())
+        );
+        assertEquals(List.of(createdDirectory), rescan.newDirectories());
+    }
+
+    @Test
+    void rescanIsEmptyWhenNothingChanged() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        writtenBefore(Files.writeString(directory.resolve("Example.class"), "example"));
+        Files.createDirectory(directory.resolve("sub"));
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        snapshot.add(directory);
+
+        DirectorySnapshot.Rescan rescan = snapshot.rescan(directory);
+
+        assertEquals(List.of(), rescan.events());
+        assertEquals(List.of(), rescan.newDirectories());
+    }
+
+    @Test
+    void snapshotFollowsReportedEvents() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        snapshot.add(directory);
+
+        Path created = writtenBefore(Files.writeString(directory.resolve("Created.class"), "created"));
+        snapshot.update(new FileSystemEvent(created, EventType.CREATED));
+
+        assertEquals(List.of(), snapshot.rescan(directory).events());
+    }
+
+    @Test
+    void reportsRecentlyWrittenFilesAsModified() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        Path file = Files.writeString(directory.resolve("Example.class"), "example");
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        snapshot.add(directory);
+
+        // Written within the timestamp granularity, so a second write might not be visible in the timestamp
+        assertEquals(Optional.of(EventType.MODIFIED), snapshot.refresh(file));
+    }
+
+    @Test
+    void refreshReportsChangesOfASingleFile() throws Exception {
+        Path directory = Files.createTempDirectory("libs");
+        Path file = directory.resolve("app.jar");
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+
+        assertEquals(Optional.empty(), snapshot.refresh(file));
+        writtenBefore(Files.writeString(file, "created"));
+        assertEquals(Optional.of(EventType.CREATED), snapshot.refresh(file));
+        assertEquals(Optional.empty(), snapshot.refresh(file));
+        writtenBefore(Files.writeString(file, "modified"));
+        assertEquals(Optional.of(EventType.MODIFIED), snapshot.refresh(file));
+        Files.delete(file);
+        assertEquals(Optional.of(EventType.DELETED), snapshot.refresh(file));
+    }
+
+    private static Path writtenBefore(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofMinutes(1))));
+        return file;
+    }
+}
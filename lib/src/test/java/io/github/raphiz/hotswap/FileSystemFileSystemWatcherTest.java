@@ -141,13 +141,35 @@ public class FileSystemFileSystemWatcherTest {
 
     }
 
+    @Test
+    void itNotifiesForIndividuallyWatchedFiles() throws Exception {
+        Path directory = Files.createTempDirectory(null);
+        Path watchedFile = directory.resolve("app.jar");
+        Path otherFile = directory.resolve("other.jar");
+        Files.writeString(watchedFile, "Created");
+
+        Set<FileSystemEvent> changedPaths = new HashSet<>();
+        Watcher fileSystemWatcher = createWatcher(Set.of(), Set.of(watchedFile), changedPaths::add);
+        fileSystemWatcher.start();
+
+        Files.writeString(otherFile, "Created");
+        Files.writeString(watchedFile, "Changed");
+
+        waitUntil(() -> assertEquals(Set.of(new FileSystemEvent(watchedFile, EventType.MODIFIED)), changedPaths));
+        fileSystemWatcher.stop();
+    }
+
+    protected Watcher createWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) throws IOException {
+        return new FileSystemWatcher(watchDirectories, watchFiles, onChange);
+    }
+
     private void performActionAndAssertEvents(
             Set<Path> workspaces,
             ThrowingRunnable action,
             Consumer<Set<FileSystemEvent>> assertion
     ) throws Exception {
         Set<FileSystemEvent> changedPaths = new HashSet<>();
-        FileSystemWatcher fileSystemWatcher = new FileSystemWatcher(workspaces, changedPaths::add);
+        Watcher fileSystemWatcher = createWatcher(workspaces, Set.of(), changedPaths::add);
         fileSystemWatcher.start();
 
         action.run();
@@ -0,0 +1,58 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.raphiz.hotswap.GreeterAppWriter.CLASS_NAME;
+import static io.github.raphiz.hotswap.GreeterAppWriter.PACKAGE_PREFIX;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandoffRegistryTest {
+
+    @Test
+    void testComputeIfAbsentReturnsExistingValue() {
+        HandoffRegistry registry = new HandoffRegistry();
+
+        AtomicInteger first = registry.computeIfAbsent("counter", AtomicInteger::new);
+        AtomicInteger second = registry.computeIfAbsent("counter", AtomicInteger::new);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testGetReturnsTypedValue() {
+        HandoffRegistry registry = new HandoffRegistry();
+        registry.put("greeting", "Hello");
+
+        assertEquals(Optional.of("Hello"), registry.get("greeting", String.class));
+        assertEquals(Optional.empty(), registry.get("missing", String.class));
+
+        registry.remove("greeting");
+        assertEquals(Optional.empty(), registry.get("greeting", String.class));
+    }
+
+    @Test
+    void testRejectsInstancesOfHotSwappedClasses() throws Exception {
+        try (GreeterAppWriter greeterAppWriter = new GreeterAppWriter()) {
+            greeterAppWriter.writeCodeWithMessage("Hello");
+            greeterAppWriter.compile();
+            URL[] urls = {greeterAppWriter.getBuildDirectory().toUri().toURL()};
+            try (SubpackageClassLoader classLoader = new SubpackageClassLoader(urls, getClass().getClassLoader(), List.of(PACKAGE_PREFIX))) {
+                Object instance = classLoader.loadClass(PACKAGE_PREFIX + "." + CLASS_NAME).getConstructor().newInstance();
+
+                HandoffRegistry registry = new HandoffRegistry();
+                assertThrows(IllegalArgumentException.class, () -> registry.put("app", instance));
+            }
+        }
+    }
+
+    @Test
+    void testHotswapFallsBackToStandaloneRegistry() {
+        assertFalse(Hotswap.isActive());
+        assertSame(Hotswap.handoff(), Hotswap.handoff());
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotswapTest {
+    private final CapturingLogHandler capturingLogHandler = new CapturingLogHandler();
+    private final Logger logger = Logger.getLogger(Hotswap.class.getName());
+
+    @BeforeEach
+    void prepareLogger() {
+        logger.addHandler(capturingLogHandler);
+    }
+
+    @AfterEach
+    void removeLogger() {
+        logger.removeHandler(capturingLogHandler);
+    }
+
+    @Test
+    void signalsReadinessOfTheGenerationOfTheCallingThread() throws Exception {
+        GenerationContext context = GenerationContext.create(new HandoffRegistry(), "app");
+        Thread appThread = new Thread(() -> {
+            context.bindToCurrentThread();
+            Hotswap.ready();
+        });
+        appThread.start();
+        appThread.join();
+
+        assertTrue(context.readiness().isDone());
+        capturingLogHandler.assertLogRecords();
+    }
+
+    @Test
+    void warnsIfReadinessIsSignalledOutsideOfAGeneration() throws Exception {
+        GenerationContext context = GenerationContext.create(new HandoffRegistry(), "app");
+        Thread poolThread = new Thread(Hotswap::ready, "pool-thread");
+        poolThread.start();
+        poolThread.join();
+
+        assertFalse(context.readiness().isDone());
+        capturingLogHandler.assertLogRecords(new LogRecord(Level.WARNING, "Hotswap.ready() was called on thread pool-thread, "
+                + "which does not belong to a generation of the application. The signal is ignored"));
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JarSnapshotsTest {
+
+    @Test
+    void expandsJarIntoChangedEntries() throws Exception {
+        Path jar = Files.createTempDirectory("libs").resolve("app.jar");
+        writeJar(jar, Map.of(
+                "com/example/Unchanged.class", "unchanged",
+                "com/example/Modified.class", "before",
+                "com/example/Deleted.class", "deleted"
+        ));
+        JarSnapshots jarSnapshots = new JarSnapshots(Set.of(jar));
+        jarSnapshots.build();
+
+        writeJar(jar, Map.of(
+                "com/example/Unchanged.class", "unchanged",
+                "com/example/Modified.class", "after",
+                "com/example/Created.class", "created"
+        ));
+
+        assertEquals(
+                new PathUpdates(
+                        Set.of(jar.resolve("com/example/Created.class")),
+                        Set.of(jar.resolve("com/example/Modified.class")),
+                        Set.of(jar.resolve("com/example/Deleted.class"))
+                ),
+                jarSnapshots.expand(new PathUpdates(Set.of(), Set.of(jar), Set.of()))
+        );
+    }
+
+    @Test
+    void keepsJarWithoutPreviousSnapshot() throws Exception {
+        Path jar = Files.createTempDirectory("libs").resolve("app.jar");
+        JarSnapshots jarSnapshots = new JarSnapshots(Set.of(jar));
+        jarSnapshots.build();
+
+        writeJar(jar, Map.of("com/example/Created.class", "created"));
+
+        PathUpdates pathUpdates = new PathUpdates(Set.of(jar), Set.of(), Set.of());
+        assertEquals(pathUpdates, jarSnapshots.expand(pathUpdates));
+    }
+
+    @Test
+    void keepsPathsThatAreNoJars() throws Exception {
+        Path classFile = Files.createTempDirectory("classes").resolve("Example.class");
+        JarSnapshots jarSnapshots = new JarSnapshots(Set.of());
+
+        PathUpdates pathUpdates = new PathUpdates(Set.of(), Set.of(classFile), Set.of());
+        assertEquals(pathUpdates, jarSnapshots.expand(pathUpdates));
+    }
+
+    private static void writeJar(Path jar, Map<String, String> entries) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new JarEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackagePrefixMatcherTest {
+    private final PackagePrefixMatcher matcher = new PackagePrefixMatcher(List.of("com.example", "com.ex", "io.github.raphiz.", "org.a"));
+
+    @Test
+    void matchesNamesStartingWithAPrefix() {
+        assertTrue(matcher.matches("com.example.SomeClass"));
+        assertTrue(matcher.matches("com.exotic.SomeClass"));
+        assertTrue(matcher.matches("io.github.raphiz.hotswap.DevMode"));
+        assertTrue(matcher.matches("org.a"));
+    }
+
+    @Test
+    void doesNotMatchOtherNames() {
+        assertFalse(matcher.matches("com.e"));
+        assertFalse(matcher.matches("com.other.SomeClass"));
+        assertFalse(matcher.matches("io.github.raphiz"));
+        assertFalse(matcher.matches("org.b.SomeClass"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void emptyPrefixMatchesEverything() {
+        PackagePrefixMatcher matchAll = new PackagePrefixMatcher(List.of(""));
+
+        assertTrue(matchAll.matches("any.Class"));
+        assertTrue(matchAll.matches(""));
+    }
+
+    @Test
+    void noPrefixesMatchNothing() {
+        PackagePrefixMatcher matchNothing = new PackagePrefixMatcher(List.of());
+
+        assertFalse(matchNothing.matches("any.Class"));
+    }
+}
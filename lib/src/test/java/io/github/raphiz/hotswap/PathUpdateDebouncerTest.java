@@ -7,6 +7,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -84,6 +86,104 @@ class PathUpdateDebouncerTest {
         assertEquals(new PathUpdates(Set.of(), Set.of(modifiedPath), Set.of()), callbackInvocations.get(1));
     }
 
+    @Test
+    void submissionsAreNotBlockedBySlowCallbackAndAreDeliveredAfterwards() {
+        var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
+        var debouncer = new PathUpdateDebouncer(TIMEOUT, pathUpdates -> {
+            callbackInvocations.add(pathUpdates);
+            sleep(TIMEOUT.multipliedBy(5));
+        });
+        Path firstPath = Path.of("/path/to/file1");
+        Path secondPath = Path.of("/path/to/file2");
+        Path thirdPath = Path.of("/path/to/file3");
+
+        debouncer.submit(firstPath, EventType.MODIFIED);
+        await().untilAsserted(() -> assertEquals(1, callbackInvocations.size()));
+
+        var submitStart = Instant.now();
+        debouncer.submit(secondPath, EventType.MODIFIED);
+        debouncer.submit(thirdPath, EventType.MODIFIED);
+        assertTrue(Duration.between(submitStart, Instant.now()).compareTo(TIMEOUT) < 0);
+
+        await().untilAsserted(() -> assertEquals(2, callbackInvocations.size()));
+        assertEquals(new PathUpdates(Set.of(), Set.of(secondPath, thirdPath), Set.of()), callbackInvocations.get(1));
+    }
+
+    @Test
+    void callbackIsNotInvokedConcurrentlyOnSharedExecutor() throws InterruptedException {
+        var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
+        var concurrentInvocations = new AtomicInteger();
+        var maxConcurrentInvocations = new AtomicInteger();
+        var firstCallbackStarted = new CountDownLatch(1);
+        var releaseFirstCallback = new CountDownLatch(1);
+        try (var scheduler = new HotswapScheduler(4)) {
+            var debouncer = PathUpdateDebouncer.manual(pathUpdates -> {
+                maxConcurrentInvocations.accumulateAndGet(concurrentInvocations.incrementAndGet(), Math::max);
+                firstCallbackStarted.countDown();
+                try {
+                    releaseFirstCallback.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                callbackInvocations.add(pathUpdates);
+                concurrentInvocations.decrementAndGet();
+            }, scheduler.executor());
+            Path firstPath = Path.of("/path/to/file1");
+            Path secondPath = Path.of("/path/to/file2");
+
+            debouncer.submit(firstPath, EventType.MODIFIED);
+            debouncer.flush();
+            firstCallbackStarted.await();
+            debouncer.submit(secondPath, EventType.MODIFIED);
+            debouncer.flush();
+            sleep(TIMEOUT);
+            releaseFirstCallback.countDown();
+
+            await().untilAsserted(() -> assertEquals(2, callbackInvocations.size()));
+            assertEquals(1, maxConcurrentInvocations.get());
+            assertEquals(new PathUpdates(Set.of(), Set.of(secondPath), Set.of()), callbackInvocations.get(1));
+        }
+    }
+
+    @Test
+    void flushInvokesCallbackWithoutWaitingForTimeout() {
+        var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
+        var debouncer = new PathUpdateDebouncer(Duration.ofMinutes(1), callbackInvocations::add);
+        Path modifiedPath = Path.of("/path/to/file");
+
+        debouncer.submit(modifiedPath, EventType.MODIFIED);
+        debouncer.flush();
+
+        await().atMost(TIMEOUT).untilAsserted(() -> assertEquals(1, callbackInvocations.size()));
+        assertEquals(new PathUpdates(Set.of(), Set.of(modifiedPath), Set.of()), callbackInvocations.get(0));
+    }
+
+    @Test
+    void manualDebouncerOnlyInvokesCallbackOnFlush() throws InterruptedException {
+        var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
+        var debouncer = PathUpdateDebouncer.manual(callbackInvocations::add);
+        Path createdPath = Path.of("/path/to/file");
+
+        debouncer.submit(createdPath, EventType.CREATED);
+        Thread.sleep(TIMEOUT.toMillis() + 50);
+        assertEquals(0, callbackInvocations.size());
+
+        debouncer.flush();
+        await().untilAsserted(() -> assertEquals(1, callbackInvocations.size()));
+        assertEquals(new PathUpdates(Set.of(createdPath), Set.of(), Set.of()), callbackInvocations.get(0));
+    }
+
+    @Test
+    void flushWithoutSubmissionsDoesNotInvokeCallback() throws InterruptedException {
+        var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
+        var debouncer = PathUpdateDebouncer.manual(callbackInvocations::add);
+
+        debouncer.flush();
+        Thread.sleep(50);
+
+        assertEquals(0, callbackInvocations.size());
+    }
+
     @Test
     void callbackIsNotCalledIfNoSubmissionsAfterInitialTimeout() throws InterruptedException {
         var callbackInvocations = new CopyOnWriteArrayList<PathUpdates>();
@@ -95,4 +195,12 @@ class PathUpdateDebouncerTest {
         // Verify callback was never called since no submissions were made
         assertEquals(0, callbackInvocations.size());
     }
-}
\ No newline at end of file
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
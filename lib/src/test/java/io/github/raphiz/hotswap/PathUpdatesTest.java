@@ -151,4 +151,37 @@ class PathUpdatesTest {
         assertEquals(expectedPathUpdates, actualPathUpdates);
     }
 
-}
\ No newline at end of file
+    @Test
+    void builderAccumulatesUpdatesWithSameSemanticsAsWithPathUpdate() {
+        Path created = Path.of("/path/to/created");
+        Path modified = Path.of("/path/to/modified");
+        Path deleted = Path.of("/path/to/deleted");
+
+        PathUpdates actualPathUpdates = PathUpdates.builder()
+                .add(created, EventType.CREATED)
+                .add(created, EventType.MODIFIED)
+                .add(modified, EventType.DELETED)
+                .add(modified, EventType.MODIFIED)
+                .add(deleted, EventType.CREATED)
+                .add(deleted, EventType.DELETED)
+                .build();
+
+        PathUpdates expectedPathUpdates = new PathUpdates(Set.of(created), Set.of(modified), Set.of(deleted));
+        assertEquals(expectedPathUpdates, actualPathUpdates);
+    }
+
+    @Test
+    void builderIsResetAfterBuild() {
+        Path aPath = Path.of("/path/to/something");
+        PathUpdates.Builder builder = PathUpdates.builder().add(aPath, EventType.CREATED);
+
+        PathUpdates first = builder.build();
+        builder.add(aPath, EventType.MODIFIED);
+        PathUpdates second = builder.build();
+
+        assertEquals(new PathUpdates(Set.of(aPath), Set.of(), Set.of()), first);
+        assertEquals(new PathUpdates(Set.of(), Set.of(aPath), Set.of()), second);
+        assertTrue(builder.isEmpty());
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.github.raphiz.hotswap;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs all watcher tests against the polling watcher.
+ */
+public class PollingFileSystemWatcherTest extends FileSystemFileSystemWatcherTest {
+
+    @Override
+    protected Watcher createWatcher(Set<Path> watchDirectories, Set<Path> watchFiles, Consumer<FileSystemEvent> onChange) {
+        // A single directory per tick, so larger trees are scanned over several ticks
+        return new PollingFileSystemWatcher(watchDirectories, watchFiles, onChange, Duration.ofMillis(5), 1);
+    }
+
+    @Test
+    void reportsWatchedFilesOnlyAfterTheChangesThatPrecededThem() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        List<Path> classFiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            classFiles.add(Files.createDirectory(directory.resolve("package" + i)).resolve("Foo.class"));
+        }
+        Path marker = Files.createTempDirectory("hotswap").resolve("build-completed");
+        List<Path> reported = new CopyOnWriteArrayList<>();
+        Watcher watcher = createWatcher(Set.of(directory), Set.of(marker), event -> reported.add(event.path()));
+        watcher.start();
+        try {
+            for (Path classFile : classFiles) {
+                Files.writeString(classFile, "class");
+            }
+            Files.writeString(marker, "done");
+
+            Awaitility.await().until(() -> reported.contains(marker));
+            // Files written within the timestamp granularity may be reported again by later rounds
+            assertTrue(reported.subList(0, reported.indexOf(marker)).containsAll(classFiles), reported.toString());
+        } finally {
+            watcher.stop();
+        }
+    }
+}
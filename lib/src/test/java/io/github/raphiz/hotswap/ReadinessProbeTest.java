@@ -0,0 +1,22 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadinessProbeTest {
+
+    @Test
+    void parsesProbes() {
+        assertEquals(new ReadinessProbe.MainInvoked(), ReadinessProbe.parse("main"));
+        assertEquals(new ReadinessProbe.Signal(), ReadinessProbe.parse("signal"));
+        assertEquals(new ReadinessProbe.PortListening(8080), ReadinessProbe.parse("port:8080"));
+    }
+
+    @Test
+    void failsForUnknownProbe() {
+        assertThrows(IllegalArgumentException.class, () -> ReadinessProbe.parse("http"));
+        assertThrows(IllegalArgumentException.class, () -> ReadinessProbe.parse("port:abc"));
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static io.github.raphiz.hotswap.RestartFilter.Decision.IGNORE;
+import static io.github.raphiz.hotswap.RestartFilter.Decision.RELOAD;
+import static io.github.raphiz.hotswap.RestartFilter.Decision.RESTART;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestartFilterTest {
+    private static final Path CLASSES = Path.of("/project/build/classes");
+    private static final Path RESOURCES = Path.of("/project/build/resources");
+    private static final Path JAR = Path.of("/project/libs/module.jar");
+
+    @Test
+    void restartsForAllFilesInTheClassPathByDefault() {
+        RestartFilter filter = new RestartFilter(List.of(CLASSES, RESOURCES), List.of(JAR), List.of(), List.of(), List.of());
+
+        assertEquals(RESTART, filter.decide(CLASSES.resolve("com/example/Foo.class")));
+        assertEquals(RESTART, filter.decide(RESOURCES.resolve("application.properties")));
+        assertEquals(RESTART, filter.decide(JAR));
+        assertEquals(IGNORE, filter.decide(Path.of("/project/src/Foo.java")));
+        assertEquals(IGNORE, filter.decide(Path.of("/project/libs/other.jar")));
+    }
+
+    @Test
+    void restartsOnlyForIncludedAndNotExcludedFiles() {
+        RestartFilter filter = new RestartFilter(List.of(CLASSES, RESOURCES), List.of(JAR), List.of("com/example/**"), List.of("**/*Test.class", "**~"), List.of());
+
+        assertEquals(RESTART, filter.decide(CLASSES.resolve("com/example/Foo.class")));
+        assertEquals(IGNORE, filter.decide(CLASSES.resolve("com/other/Foo.class")));
+        assertEquals(IGNORE, filter.decide(CLASSES.resolve("com/example/FooTest.class")));
+        assertEquals(IGNORE, filter.decide(CLASSES.resolve("com/example/Foo.class~")));
+        // Jars are not matched by name
+        assertEquals(RESTART, filter.decide(JAR));
+    }
+
+    @Test
+    void reloadsResourceOnlyFilesWithoutRestart() {
+        RestartFilter filter = new RestartFilter(List.of(CLASSES, RESOURCES), List.of(), List.of(), List.of(), List.of("templates/**", "**/*.{css,js}", "**/*.class"));
+
+        assertEquals(RELOAD, filter.decide(RESOURCES.resolve("templates/index.html")));
+        assertEquals(RELOAD, filter.decide(RESOURCES.resolve("static/app.css")));
+        assertEquals(RELOAD, filter.decide(RESOURCES.resolve("app.js")));
+        assertEquals(RESTART, filter.decide(RESOURCES.resolve("application.properties")));
+        // Loaded classes are not read again
+        assertEquals(RESTART, filter.decide(CLASSES.resolve("com/example/Foo.class")));
+    }
+
+    @Test
+    void compilesAllGlobsIntoOnePattern() {
+        Pattern pattern = RestartFilter.compile(List.of("*.properties", "static/**", "**/[!a-c]?.txt", "{a,b}.xml"));
+
+        assertTrue(pattern.matcher("application.properties").matches());
+        assertFalse(pattern.matcher("config/application.properties").matches());
+        assertTrue(pattern.matcher("static/css/app.css").matches());
+        assertTrue(pattern.matcher("docs/d1.txt").matches());
+        assertTrue(pattern.matcher("d1.txt").matches());
+        assertFalse(pattern.matcher("docs/a1.txt").matches());
+        assertTrue(pattern.matcher("b.xml").matches());
+        assertFalse(pattern.matcher("c.xml").matches());
+        assertFalse(pattern.matcher("applicationXproperties").matches());
+        assertNull(RestartFilter.compile(List.of()));
+    }
+
+    @Test
+    void rejectsMalformedGlobs() {
+        assertThrows(IllegalArgumentException.class, () -> RestartFilter.compile(List.of("{a,b")));
+        assertThrows(IllegalArgumentException.class, () -> RestartFilter.compile(List.of("[a-z")));
+    }
+}
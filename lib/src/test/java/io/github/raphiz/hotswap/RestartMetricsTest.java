@@ -0,0 +1,86 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestartMetricsTest {
+    private final RestartMetrics restartMetrics = new RestartMetrics();
+
+    @Test
+    void recordsPhasesOfRestart() {
+        restartMetrics.restartStarted();
+        restartMetrics.record(RestartMetrics.Phase.STOP, TimeUnit.MILLISECONDS.toNanos(120));
+        restartMetrics.record(RestartMetrics.Phase.CLOSE, TimeUnit.MILLISECONDS.toNanos(3));
+        restartMetrics.record(RestartMetrics.Phase.MAIN, TimeUnit.MILLISECONDS.toNanos(18));
+        restartMetrics.generationReady(TimeUnit.MILLISECONDS.toNanos(250));
+
+        assertEquals(1, restartMetrics.getRestartCount());
+        assertEquals(250, restartMetrics.getLastBootMillis());
+        Map<String, Long> lastRestart = restartMetrics.getLastRestartMillis();
+        assertEquals(List.of("stop", "close", "main", "ready", "total"), List.copyOf(lastRestart.keySet()));
+        assertEquals(120, lastRestart.get("stop").longValue());
+        assertTrue(restartMetrics.summary().matches("Restarted in \\d+ms \\(stop 120ms, close 3ms, main 18ms, ready 250ms\\)"));
+    }
+
+    @Test
+    void includesDebounceOfTriggeringEvent() {
+        restartMetrics.restartTriggered(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+        restartMetrics.restartStarted();
+        restartMetrics.restartCompleted();
+
+        assertTrue(restartMetrics.getLastRestartMillis().get("debounce") >= 100);
+        assertTrue(restartMetrics.getLastRestartMillis().get("total") >= 100);
+    }
+
+    @Test
+    void ignoresPhasesOutsideOfRestart() {
+        restartMetrics.record(RestartMetrics.Phase.STOP, TimeUnit.MILLISECONDS.toNanos(120));
+        restartMetrics.restartCompleted();
+
+        assertEquals(0, restartMetrics.getRestartCount());
+        assertEquals(Map.of(), restartMetrics.getMaxMillis());
+    }
+
+    @Test
+    void computesPercentilesOverRecentRestarts() {
+        for (int i = 1; i <= 20; i++) {
+            restartMetrics.restartStarted();
+            restartMetrics.record(RestartMetrics.Phase.STOP, TimeUnit.MILLISECONDS.toNanos(i));
+            restartMetrics.restartCompleted();
+        }
+
+        assertEquals(10, restartMetrics.getMedianMillis().get("stop").longValue());
+        assertEquals(19, restartMetrics.getP95Millis().get("stop").longValue());
+        assertEquals(20, restartMetrics.getMaxMillis().get("stop").longValue());
+    }
+
+    @Test
+    void rollingHistogramKeepsMostRecentSamples() {
+        RestartMetrics.RollingHistogram histogram = new RestartMetrics.RollingHistogram(3);
+        for (long sample : new long[]{100, 1, 2, 3}) {
+            histogram.record(sample);
+        }
+
+        assertEquals(3, histogram.percentile(1));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    void exposesMetricsViaJmx() throws Exception {
+        restartMetrics.registerMBean();
+        restartMetrics.restartStarted();
+        restartMetrics.restartCompleted();
+
+        Object restartCount = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(RestartMetrics.OBJECT_NAME), "RestartCount");
+        assertEquals(1L, restartCount);
+    }
+}
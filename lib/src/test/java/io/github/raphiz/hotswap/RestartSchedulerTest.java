@@ -0,0 +1,116 @@
+package io.github.raphiz.hotswap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestartSchedulerTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<PathUpdates> restarts = new CopyOnWriteArrayList<>();
+    private final List<Boolean> requested = new CopyOnWriteArrayList<>();
+    private final AtomicInteger abortedBoots = new AtomicInteger();
+    private final CountDownLatch firstRestartStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstRestart = new CountDownLatch(1);
+    private final RestartScheduler restartScheduler = new RestartScheduler((pathUpdates, requested) -> {
+        this.requested.add(requested);
+        restarts.add(pathUpdates);
+        if (restarts.size() == 1) {
+            firstRestartStarted.countDown();
+            try {
+                releaseFirstRestart.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }, abortedBoots::incrementAndGet, executor);
+
+    @Test
+    void mergesUpdatesArrivingDuringRestartIntoOnePendingRestart() throws InterruptedException {
+        restartScheduler.submit(modified("/First.class"));
+        assertTrue(firstRestartStarted.await(5, TimeUnit.SECONDS));
+
+        restartScheduler.submit(modified("/Second.class"));
+        restartScheduler.submit(modified("/Third.class"));
+        releaseFirstRestart.countDown();
+
+        await().untilAsserted(() -> assertEquals(2, restarts.size()));
+        assertEquals(new PathUpdates(Set.of(), Set.of(Path.of("/Second.class"), Path.of("/Third.class")), Set.of()), restarts.get(1));
+        assertEquals(2, abortedBoots.get());
+    }
+
+    @Test
+    void doesNotAbortBootsWhenNoRestartIsInProgress() {
+        releaseFirstRestart.countDown();
+
+        restartScheduler.submit(modified("/First.class"));
+        await().untilAsserted(() -> assertEquals(1, restarts.size()));
+        restartScheduler.submit(modified("/Second.class"));
+        await().untilAsserted(() -> assertEquals(2, restarts.size()));
+
+        assertEquals(0, abortedBoots.get());
+    }
+
+    @Test
+    void mergesRequestedRestartIntoPendingRestart() throws Exception {
+        restartScheduler.submit(modified("/First.class"));
+        assertTrue(firstRestartStarted.await(5, TimeUnit.SECONDS));
+
+        restartScheduler.submit(modified("/Second.class"));
+        CompletableFuture<Void> requestedRestart = restartScheduler.requestRestart();
+        assertFalse(requestedRestart.isDone());
+        releaseFirstRestart.countDown();
+
+        requestedRestart.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(modified("/First.class"), modified("/Second.class")), restarts);
+        assertEquals(List.of(false, true), requested);
+        assertEquals(2, abortedBoots.get());
+    }
+
+    @Test
+    void restartsWithoutUpdatesWhenRequested() throws Exception {
+        releaseFirstRestart.countDown();
+
+        restartScheduler.requestRestart().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(new PathUpdates()), restarts);
+        assertEquals(List.of(true), requested);
+    }
+
+    @Test
+    void discardsPendingRestartWhenClosed() throws InterruptedException {
+        restartScheduler.submit(modified("/First.class"));
+        assertTrue(firstRestartStarted.await(5, TimeUnit.SECONDS));
+        restartScheduler.submit(modified("/Second.class"));
+
+        restartScheduler.close();
+        releaseFirstRestart.countDown();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, restarts.size());
+    }
+
+    private static PathUpdates modified(String path) {
+        return new PathUpdates(Set.of(), Set.of(Path.of(path)), Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+}
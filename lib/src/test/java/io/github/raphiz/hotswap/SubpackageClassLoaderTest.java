@@ -7,6 +7,7 @@ import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -87,6 +88,49 @@ class SubpackageClassLoaderTest {
         assertEquals(List.of("java.lang.Object"), parentClassLoader.loadedClasses);
     }
 
+    @Test
+    void tracksDefinedClassNames() throws Exception {
+        loaderWithPackagePrefixes.loadClass(CLASS_FROM_SUBPACKAGE, false);
+        loaderWithPackagePrefixes.loadClass(CLASS_FROM_OTHER_PACKAGE, false);
+
+        assertEquals(Set.of(CLASS_FROM_SUBPACKAGE), loaderWithPackagePrefixes.getDefinedClassNames());
+    }
+
+    @Test
+    void loadsClassesAndResourcesFromClassPathIndex() throws Exception {
+        ClassPathIndex classPathIndex = new ClassPathIndex(ClassPathIndex.directories(classLoaderUrls));
+        classPathIndex.build();
+        SubpackageClassLoader loader = SubpackageClassLoader.withClassNameFilter(
+                classLoaderUrls,
+                parentClassLoader,
+                SubpackageClassLoader.packagePrefixFilter(List.of(SUBPACKAGE_PREFIX)),
+                classPathIndex
+        );
+
+        Class<?> clazz = loader.loadClass(CLASS_FROM_SUBPACKAGE, false);
+
+        assertSame(loader, clazz.getClassLoader());
+        assertEquals(SUBPACKAGE_PREFIX, clazz.getPackageName());
+        assertNotNull(clazz.getPackage());
+        assertNotNull(loader.getResource("com/example/SomeClass.class"));
+        assertNotNull(loader.findResource(""));
+        assertEquals(0, loader.getURLs().length);
+    }
+
+    @Test
+    void doesNotProbeIndexedDirectoriesForUnindexedClasses() {
+        // Not built, so the class file on disk is unknown to the index
+        ClassPathIndex classPathIndex = new ClassPathIndex(ClassPathIndex.directories(classLoaderUrls));
+        SubpackageClassLoader loader = SubpackageClassLoader.withClassNameFilter(
+                classLoaderUrls,
+                parentClassLoader,
+                SubpackageClassLoader.packagePrefixFilter(List.of(SUBPACKAGE_PREFIX)),
+                classPathIndex
+        );
+
+        assertThrows(ClassNotFoundException.class, () -> loader.loadClass(CLASS_FROM_SUBPACKAGE, false));
+    }
+
     private class MockParentClassLoader extends URLClassLoader {
         final List<String> loadedClasses = new ArrayList<>();
 
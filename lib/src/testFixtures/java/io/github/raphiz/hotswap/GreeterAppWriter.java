@@ -11,9 +11,13 @@ import java.net.URLClassLoader;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.Comparator;
 import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -114,6 +118,148 @@ public class GreeterAppWriter implements AutoCloseable {
         Files.writeString(getJavaFilePath(), javaCode);
     }
 
+    public void writeAppWithWorkerAndSlowShutdownProcedure(Duration shutdownDuration) throws IOException {
+        String javaCode = """
+                package %s;
+                import java.nio.file.*;
+                
+                public class %s {
+                    public static void main(String[] args) throws Exception {
+                        Thread worker = new Thread(() -> {
+                            try {
+                                Thread.sleep(Long.MAX_VALUE);
+                            } catch (InterruptedException e) {
+                                try {
+                                    Files.writeString(Path.of("%s"), "Worker interrupted");
+                                } catch (Exception ignored) {
+                                }
+                            }
+                        }, "worker");
+                        worker.start();
+                        Files.writeString(Path.of("%s"), "Started");
+                        while (true) {
+                            try {
+                                Thread.sleep(1000);
+                            } catch (InterruptedException e) {
+                                Thread.sleep(%s);
+                                break;
+                            }
+                        }
+                    }
+                }
+                """.formatted(packageName, className, outputLog.toAbsolutePath(), outputLog.toAbsolutePath(), shutdownDuration.toMillis());
+
+        Files.createDirectories(getJavaFilePath().getParent());
+        Files.writeString(getJavaFilePath(), javaCode);
+    }
+
+    public void writeAppCountingGenerationsWithHandoff() throws IOException {
+        // Uses reflection because the app is compiled without hotswap on the class path
+        String javaCode = """
+                package %s;
+                import java.nio.file.*;
+                import java.util.concurrent.atomic.AtomicInteger;
+                import java.util.function.Supplier;
+                
+                public class %s {
+                    public static void main(String[] args) throws Exception {
+                        Object handoff = Class.forName("io.github.raphiz.hotswap.Hotswap").getMethod("handoff").invoke(null);
+                        Supplier<AtomicInteger> counter = AtomicInteger::new;
+                        AtomicInteger generations = (AtomicInteger) handoff.getClass()
+                                .getMethod("computeIfAbsent", String.class, Supplier.class)
+                                .invoke(handoff, "generations", counter);
+                        Files.writeString(Path.of("%s"), "Generation " + generations.incrementAndGet());
+                        while (true) {
+                            try {
+                                Thread.sleep(1000);
+                            } catch (InterruptedException e) {
+                                break;
+                            }
+                        }
+                    }
+                }
+                """.formatted(packageName, className, outputLog.toAbsolutePath());
+
+        Files.createDirectories(getJavaFilePath().getParent());
+        Files.writeString(getJavaFilePath(), javaCode);
+    }
+
+    public void writeAppWithShutdownCallback() throws IOException {
+        // Uses reflection because the app is compiled without hotswap on the class path
+        String javaCode = """
+                package %s;
+                import java.lang.reflect.Proxy;
+                import java.nio.file.*;
+                
+                public class %s {
+                    public static void main(String[] args) throws Exception {
+                        Path output = Path.of("%s");
+                        Class<?> lifecycle = Class.forName("io.github.raphiz.hotswap.Lifecycle");
+                        Object callback = Proxy.newProxyInstance(lifecycle.getClassLoader(), new Class<?>[]{lifecycle}, (proxy, method, methodArgs) -> {
+                            Files.writeString(output, "Stopped gracefully");
+                            return null;
+                        });
+                        Class.forName("io.github.raphiz.hotswap.Hotswap").getMethod("onShutdown", lifecycle).invoke(null, callback);
+                        Files.writeString(output, "Running");
+                        while (true) {
+                            try {
+                                Thread.sleep(1000);
+                            } catch (InterruptedException e) {
+                                break;
+                            }
+                        }
+                    }
+                }
+                """.formatted(packageName, className, outputLog.toAbsolutePath());
+
+        Files.createDirectories(getJavaFilePath().getParent());
+        Files.writeString(getJavaFilePath(), javaCode);
+    }
+
+    public void writeAppSignallingReadinessAfter(Duration bootDuration) throws IOException {
+        // Uses reflection because the app is compiled without hotswap on the class path
+        String javaCode = """
+                package %s;
+                import java.nio.file.*;
+                
+                public class %s {
+                    public static void main(String[] args) throws Exception {
+                        Files.writeString(Path.of("%s"), "Booting");
+                        Thread.sleep(%s);
+                        Class.forName("io.github.raphiz.hotswap.Hotswap").getMethod("ready").invoke(null);
+                        Files.writeString(Path.of("%s"), "Ready");
+                        while (true) {
+                            try {
+                                Thread.sleep(1000);
+                            } catch (InterruptedException e) {
+                                break;
+                            }
+                        }
+                    }
+                }
+                """.formatted(packageName, className, outputLog.toAbsolutePath(), bootDuration.toMillis(), outputLog.toAbsolutePath());
+
+        Files.createDirectories(getJavaFilePath().getParent());
+        Files.writeString(getJavaFilePath(), javaCode);
+    }
+
+    public void writeAppFailingOnStart() throws IOException {
+        String javaCode = """
+                package %s;
+                import java.nio.file.*;
+                
+                public class %s {
+                    public static void main(String[] args) throws Exception {
+                        Files.writeString(Path.of("%s"), "Failing");
+                        throw new IllegalStateException("Failed to start");
+                    }
+                }
+                """.formatted(packageName, className, outputLog.toAbsolutePath());
+
+        Files.createDirectories(getJavaFilePath().getParent());
+        Files.writeString(getJavaFilePath(), javaCode);
+    }
+
     public void compile() throws IOException, InterruptedException {
         Process process = new ProcessBuilder("javac", "--release", JAVA_LANGUAGE_VERSION, "-d",
                 buildDirectory.toAbsolutePath().toString(),
@@ -126,6 +272,22 @@ public class GreeterAppWriter implements AutoCloseable {
         assertEquals(0, process.exitValue(), "Compilation failed with unexpected exit code");
     }
 
+    /**
+     * Packages the compiled classes into the given jar, replacing it atomically if it already exists.
+     */
+    public void packageJar(Path jar) throws IOException {
+        Path temporaryJar = Files.createTempFile(jar.getParent(), "package", ".tmp");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(temporaryJar));
+             Stream<Path> files = Files.walk(buildDirectory)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                out.putNextEntry(new JarEntry(buildDirectory.relativize(file).toString().replace(File.separatorChar, '/')));
+                out.write(Files.readAllBytes(file));
+                out.closeEntry();
+            }
+        }
+        Files.move(temporaryJar, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     public void assertOutputsMessage(String message) {
         assertOutputsMessage(message, Duration.ofSeconds(5));
     }
@@ -144,7 +306,9 @@ public class GreeterAppWriter implements AutoCloseable {
     @Override
     public void close() throws Exception {
         Files.delete(outputLog);
-        deleteRecursively(sourceDirectory);
+        if (Files.exists(sourceDirectory)) {
+            deleteRecursively(sourceDirectory);
+        }
     }
 
     private void deleteRecursively(Path path) throws IOException {
@@ -15,4 +15,4 @@ dependencyResolutionManagement {
 }
 
 rootProject.name = "hotswap"
-include("lib", "gradle-plugin")
+include("lib", "gradle-plugin", "benchmarks")